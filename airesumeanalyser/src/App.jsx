@@ -13,6 +13,7 @@ import ProtectedRoute from './components/ProtectedRoute';
 import AdminRoute from './components/AdminRoute';
 
 const API_BASE_URL = '/api/analyze';
+const ANALYSIS_POLL_BUDGET_MS = 5 * 60 * 1000;
 
 // Home Page Component (The previous App logic)
 const Home = () => {
@@ -68,6 +69,14 @@ const Home = () => {
             if (response.status === 401 || response.status === 403) {
               throw new Error("Authentication failed. Please login again.");
             }
+            if (response.status === 429) {
+              // Rate limited: retrying right away would only be rejected again
+              const retryAfter = response.headers.get('Retry-After');
+              const errorBody = await response.json().catch(() => ({}));
+              const error = new Error(`${errorBody.error || 'Too many requests'}${retryAfter ? ` Try again in ${retryAfter}s.` : ''}`);
+              error.noRetry = true;
+              throw error;
+            }
             if (!response.ok) {
               // Throw error for 4xx or 5xx status codes
               let errorMessage = `HTTP error! Status: ${response.status}`;
@@ -82,7 +91,7 @@ const Home = () => {
             }
             return response;
           } catch (err) {
-            if (attempt < maxRetries - 1) {
+            if (attempt < maxRetries - 1 && !err.noRetry) {
               const delay = Math.pow(2, attempt) * 1000;
               await new Promise(resolve => setTimeout(resolve, delay));
             } else {
@@ -100,17 +109,40 @@ const Home = () => {
         body: formData,
       });
 
-      const parsedResult = await response.json();
+      const submission = await response.json();
 
-      // Check if the analysis is still pending (timeout on backend)
-      if (parsedResult.status === 'PENDING_TIMEOUT') {
+      // The backend queues the analysis and answers 202; long-poll the status resource until it settles
+      let status = submission;
+      const deadline = Date.now() + ANALYSIS_POLL_BUDGET_MS;
+      while (status.status === 'PENDING' && Date.now() < deadline) {
+        const statusResponse = await fetch(`${submission.statusUrl}?wait=25`, {
+          headers: {
+            'Authorization': `Bearer ${token}`
+          }
+        });
+        if (!statusResponse.ok) {
+          throw new Error(`HTTP error! Status: ${statusResponse.status}`);
+        }
+        status = await statusResponse.json();
+      }
+
+      if (status.status === 'COMPLETED') {
+        setAnalysisResult(status.result);
+      } else if (status.status === 'FAILED') {
+        setError('The analysis could not be completed. Please try again.');
+      } else {
+        // Still running after the polling budget; the result will appear in the Dashboard
         setError(null);
+        // A keyword match the backend computes up front, if it could read the resume
         setAnalysisResult({
-          ...parsedResult,
-          isPending: true
+          suitability_score: status.provisional?.suitability_score ?? 0,
+          matched_skills: status.provisional?.matched_skills ?? [],
+          is_suitable: false,
+          job_title: 'Analysis in Progress...',
+          message: 'Analysis taking longer than expected. Check history later.',
+          isPending: true,
+          isProvisional: Boolean(status.provisional)
         });
-      } else {
-        setAnalysisResult(parsedResult);
       }
 
     } catch (err) {
@@ -426,6 +458,12 @@ const Home = () => {
             <div className="mt-8 p-4 bg-blue-50 border-l-4 border-blue-500 text-blue-800 rounded-r-xl">
               <p className="font-bold flex items-center"><Clock className="w-5 h-5 mr-2" /> Analysis Still Processing</p>
               <p className="mt-1">Your analysis is taking longer than expected. The AI model is still processing your resume in the background.</p>
+              {analysisResult.isProvisional && (
+                <p className="mt-2">
+                  Preliminary keyword match: <span className="font-semibold">{analysisResult.suitability_score}%</span>
+                  {analysisResult.matched_skills.length > 0 && ` (${analysisResult.matched_skills.join(', ')})`}
+                </p>
+              )}
               <p className="mt-2">Please check your <a href="/dashboard" className="text-indigo-600 font-semibold hover:underline">Dashboard</a> in a few minutes to see your results.</p>
             </div>
           )}
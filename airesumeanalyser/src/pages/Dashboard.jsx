@@ -8,22 +8,34 @@ import { FileText, Plus, Clock, Download, CheckCircle, XCircle, Eye, X } from 'l
 const Dashboard = () => {
     const { user } = useAuth();
     const [history, setHistory] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [totalItems, setTotalItems] = useState(0);
     const [loading, setLoading] = useState(true);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [selectedItem, setSelectedItem] = useState(null);
 
+    // History is paginated with an opaque cursor; pass null for the first page
+    const fetchHistoryPage = async (cursor) => {
+        const token = localStorage.getItem('token');
+        const query = cursor ? `?cursor=${encodeURIComponent(cursor)}` : '';
+        const response = await fetch(`/api/profile/history${query}`, {
+            headers: {
+                'Authorization': `Bearer ${token}`
+            }
+        });
+        if (!response.ok) {
+            throw new Error(`HTTP error! Status: ${response.status}`);
+        }
+        return response.json();
+    };
+
     useEffect(() => {
         const fetchHistory = async () => {
             try {
-                const token = localStorage.getItem('token');
-                const response = await fetch('/api/profile/history', {
-                    headers: {
-                        'Authorization': `Bearer ${token}`
-                    }
-                });
-                if (response.ok) {
-                    const data = await response.json();
-                    setHistory(data);
-                }
+                const data = await fetchHistoryPage(null);
+                setHistory(data.items);
+                setNextCursor(data.nextCursor);
+                setTotalItems(data.totalItems ?? data.items.length);
             } catch (error) {
                 console.error("Failed to fetch history", error);
             } finally {
@@ -34,6 +46,36 @@ const Dashboard = () => {
         fetchHistory();
     }, []);
 
+    const loadMore = async () => {
+        setLoadingMore(true);
+        try {
+            const data = await fetchHistoryPage(nextCursor);
+            setHistory(prev => [...prev, ...data.items]);
+            setNextCursor(data.nextCursor);
+        } catch (error) {
+            console.error("Failed to fetch history", error);
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
+    // The list only carries summaries; load the full result when the details are opened
+    const openDetails = async (item) => {
+        try {
+            const token = localStorage.getItem('token');
+            const response = await fetch(`/api/profile/history/${item.id}`, {
+                headers: {
+                    'Authorization': `Bearer ${token}`
+                }
+            });
+            if (response.ok) {
+                setSelectedItem(await response.json());
+            }
+        } catch (error) {
+            console.error("Failed to fetch analysis details", error);
+        }
+    };
+
     const closeModal = () => setSelectedItem(null);
 
     // Parse JSON strings safely
@@ -76,7 +118,7 @@ const Dashboard = () => {
                         </div>
                         <div>
                             <p className="text-sm text-gray-500 font-medium">Total Analyses</p>
-                            <h3 className="text-2xl font-bold text-gray-900">{history.length}</h3>
+                            <h3 className="text-2xl font-bold text-gray-900">{totalItems}</h3>
                         </div>
                     </div>
                 </div>
@@ -147,7 +189,7 @@ const Dashboard = () => {
                                             <td className="px-6 py-4 text-right">
                                                 <div className="flex items-center justify-end space-x-3">
                                                     <button 
-                                                        onClick={() => setSelectedItem(item)}
+                                                        onClick={() => openDetails(item)}
                                                         className="text-indigo-600 hover:text-indigo-900 text-sm font-medium flex items-center"
                                                     >
                                                         <Eye size={16} className="mr-1" /> Details
@@ -164,6 +206,17 @@ const Dashboard = () => {
                                 </tbody>
                             </table>
                         </div>
+                        {nextCursor && (
+                            <div className="p-4 border-t border-gray-100 text-center">
+                                <button
+                                    onClick={loadMore}
+                                    disabled={loadingMore}
+                                    className="text-indigo-600 hover:text-indigo-800 text-sm font-semibold disabled:opacity-50"
+                                >
+                                    {loadingMore ? 'Loading...' : 'Load more'}
+                                </button>
+                            </div>
+                        )}
                     </div>
                 )}
             </div>
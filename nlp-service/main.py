@@ -1,6 +1,9 @@
+import gzip
+import hashlib
 import json
 import os
 import time
+from io import BytesIO
 from kafka import KafkaConsumer, KafkaProducer
 from resume_processor import ResumeProcessor
 import logging
@@ -12,6 +15,39 @@ logger = logging.getLogger(__name__)
 KAFKA_BOOTSTRAP_SERVERS = os.environ.get('KAFKA_BOOTSTRAP_SERVERS', 'kafka:9092')
 REQUEST_TOPIC = os.environ.get('KAFKA_REQUEST_TOPIC', 'resume-analysis-request')
 RESPONSE_TOPIC = os.environ.get('KAFKA_RESPONSE_TOPIC', 'resume-analysis-response')
+MINIO_BUCKET = os.environ.get('MINIO_BUCKET', 'resumes')
+# Messages larger than this are parked in MinIO and replaced by a claim_check reference
+CLAIM_CHECK_THRESHOLD_BYTES = int(os.environ.get('CLAIM_CHECK_THRESHOLD_KB', '64')) * 1024
+
+
+def check_out(minio_client, claim):
+    response = minio_client.get_object(claim['bucket'], claim['object'])
+    try:
+        raw = response.read()
+    finally:
+        response.close()
+        response.release_conn()
+    if claim.get('encoding') == 'gzip':
+        raw = gzip.decompress(raw)
+    if hashlib.sha256(raw).hexdigest() != claim['sha256']:
+        raise ValueError(f"Claim-check payload {claim['object']} does not match its hash")
+    return json.loads(raw.decode('utf-8'))
+
+
+def check_in(minio_client, bucket, candidate_id, payload):
+    raw = json.dumps(payload).encode('utf-8')
+    if len(raw) <= CLAIM_CHECK_THRESHOLD_BYTES:
+        return payload
+    digest = hashlib.sha256(raw).hexdigest()
+    object_name = f"claims/responses/{candidate_id}-{digest[:16]}.json.gz"
+    compressed = gzip.compress(raw)
+    minio_client.put_object(bucket, object_name, BytesIO(compressed), len(compressed),
+                            content_type='application/gzip')
+    return {
+        "candidate_id": candidate_id,
+        "claim_check": {"bucket": bucket, "object": object_name, "sha256": digest,
+                        "size": len(raw), "encoding": "gzip"}
+    }
 
 def main():
     logger.info("Starting Python NLP Service...")
@@ -35,7 +71,10 @@ def main():
             )
             producer = KafkaProducer(
                 bootstrap_servers=KAFKA_BOOTSTRAP_SERVERS,
-                value_serializer=lambda v: json.dumps(v).encode('utf-8')
+                key_serializer=lambda k: str(k).encode('utf-8'),
+                value_serializer=lambda v: json.dumps(v).encode('utf-8'),
+                compression_type=os.environ.get('KAFKA_COMPRESSION_TYPE', 'lz4'),
+                linger_ms=10
             )
             logger.info("Successfully connected to Kafka.")
             break
@@ -51,7 +90,13 @@ def main():
 
     for message in consumer:
         try:
+            started = time.time()
+            # Producer timestamp of the request: how long it waited on the topic for a worker
+            queued_ms = max(0, int(started * 1000) - message.timestamp)
             data = message.value
+            claim = data.get('claim_check')
+            if claim:
+                data = check_out(processor.minio_client, claim)
             logger.info(f"Received request for candidate_id: {data.get('candidate_id')}")
             
             resume_text = data.get('resume_text', '')
@@ -68,11 +113,20 @@ def main():
             # Prepare Response
             response = {
                 "candidate_id": candidate_id,
-                "analysis": analysis_result
+                "attempt": data.get('attempt'),
+                "analysis": analysis_result,
+                "timings": {
+                    "queued_ms": queued_ms,
+                    "processing_ms": int((time.time() - started) * 1000)
+                }
             }
 
             # Send back to Kafka
-            producer.send(RESPONSE_TOPIC, response)
+            bucket = claim['bucket'] if claim else MINIO_BUCKET
+            response = check_in(processor.minio_client, bucket, candidate_id, response)
+            producer.send(RESPONSE_TOPIC, key=candidate_id, value=response)
+            if claim:
+                processor.minio_client.remove_object(claim['bucket'], claim['object'])
             logger.info(f"Sent response for candidate_id: {candidate_id}")
 
         except Exception as e:
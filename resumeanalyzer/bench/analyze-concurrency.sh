@@ -0,0 +1,92 @@
+#!/usr/bin/env bash
+# Concurrency benchmark for POST /api/analyze.
+#
+# Fires CONCURRENCY simultaneous uploads at one backend node while probing
+# GET /api/profile/user, and reports how many uploads were accepted and how the
+# unrelated endpoint's latency held up. Run it once per threading mode:
+#
+#   SPRING_THREADS_VIRTUAL_ENABLED=false docker-compose up -d app-backend && ./bench/analyze-concurrency.sh
+#   SPRING_THREADS_VIRTUAL_ENABLED=true  docker-compose up -d app-backend && ./bench/analyze-concurrency.sh
+#
+# Requires curl and a running stack (Postgres, MinIO, Kafka).
+#
+# Without the stack, the load-test harness (mvn -Ploadtest exec:exec, see
+# src/loadtest) serves the same API in-process. Recorded with it on a 1-CPU
+# sandbox, PROBES=40, admission limits raised so every upload is admitted:
+#
+#   concurrency  threads    analyze ok  p50      p95      profile p50  p95
+#   200          platform   200/200     8.539s   10.298s  0.121s       5.743s
+#   200          virtual    200/200     8.277s   10.081s  0.193s       4.344s
+#   400          platform   400/400     11.979s  17.467s  0.153s       9.554s
+#   400          virtual    400/400     12.496s  18.742s  0.209s       9.677s
+#
+# With one CPU the uploads are CPU-bound and the two modes come out even; the
+# difference to look for is on a multi-core node against real Postgres and
+# MinIO, where request threads spend their time waiting on I/O.
+set -euo pipefail
+
+BASE_URL="${BASE_URL:-http://localhost:8080}"
+CONCURRENCY="${CONCURRENCY:-400}"
+PROBES="${PROBES:-50}"
+BENCH_USER="${BENCH_USER:-bench_user}"
+BENCH_PASSWORD="${BENCH_PASSWORD:-bench_password}"
+
+work_dir="$(mktemp -d)"
+trap 'rm -rf "$work_dir"' EXIT
+
+curl -s -o /dev/null -H 'Content-Type: application/json' \
+  -d "{\"username\":\"$BENCH_USER\",\"email\":\"$BENCH_USER@example.com\",\"fullName\":\"Bench User\",\"password\":\"$BENCH_PASSWORD\"}" \
+  "$BASE_URL/api/auth/register" || true
+
+token="$(curl -s -H 'Content-Type: application/json' \
+  -d "{\"username\":\"$BENCH_USER\",\"password\":\"$BENCH_PASSWORD\"}" \
+  "$BASE_URL/api/auth/login" | sed -n 's/.*"token":"\([^"]*\)".*/\1/p')"
+if [ -z "$token" ]; then
+  echo "Login failed for $BENCH_USER" >&2
+  exit 1
+fi
+
+resume="$work_dir/resume.txt"
+for i in $(seq 1 200); do
+  echo "Senior Java engineer, Spring Boot, Kafka, PostgreSQL, Docker, Kubernetes. Line $i." >> "$resume"
+done
+
+analyze() {
+  curl -s -o /dev/null -w '%{http_code} %{time_total}\n' --max-time 60 \
+    -H "Authorization: Bearer $token" \
+    -F "resume=@$resume;filename=resume-$1.txt" \
+    -F "jobDescription=Backend engineer with Java, Spring and Kafka experience" \
+    "$BASE_URL/api/analyze" || echo "000 60"
+}
+
+probe() {
+  curl -s -o /dev/null -w '%{http_code} %{time_total}\n' --max-time 30 \
+    -H "Authorization: Bearer $token" "$BASE_URL/api/profile/user" || echo "000 30"
+}
+export -f analyze probe
+export token resume BASE_URL
+
+start=$(date +%s.%N)
+seq 1 "$CONCURRENCY" | xargs -P "$CONCURRENCY" -I{} bash -c 'analyze {}' > "$work_dir/analyze.txt" &
+analyze_pid=$!
+sleep 0.5
+seq 1 "$PROBES" | xargs -P 4 -I{} bash -c 'probe' > "$work_dir/probe.txt"
+wait "$analyze_pid"
+elapsed=$(awk -v start="$start" -v end="$(date +%s.%N)" 'BEGIN { printf "%.1f", end - start }')
+
+summarize() {
+  local label="$1" file="$2"
+  local total ok
+  total=$(wc -l < "$file")
+  ok=$(awk '$1 ~ /^2/' "$file" | wc -l)
+  sort -n -k2 "$file" | awk -v label="$label" -v total="$total" -v ok="$ok" '
+    { t[NR] = $2 }
+    END {
+      printf "%-10s %5d/%-5d ok   p50 %6.3fs   p95 %6.3fs   max %6.3fs\n",
+        label, ok, total, t[int(NR * 0.50) + 1], t[int(NR * 0.95)], t[NR]
+    }'
+}
+
+echo "concurrency=$CONCURRENCY elapsed=${elapsed}s"
+summarize "analyze" "$work_dir/analyze.txt"
+summarize "profile" "$work_dir/probe.txt"
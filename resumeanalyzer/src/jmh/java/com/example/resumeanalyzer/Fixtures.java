@@ -0,0 +1,26 @@
+package com.example.resumeanalyzer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Realistic payloads shared by the benchmarks, loaded from {@code src/jmh/resources/fixtures}.
+ */
+public final class Fixtures {
+
+	private Fixtures() {
+	}
+
+	public static String read(String name) {
+		try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+			if (in == null) {
+				throw new IllegalArgumentException("No fixture named " + name);
+			}
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.resumeanalyzer.security;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token verification runs on every authenticated request; issuing runs on every login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+	// 512-bit key, the size deployments are expected to configure for HS256
+	private static final String SECRET =
+			"c2VjcmV0LWtleS1mb3ItYmVuY2htYXJrcy1vbmx5LWRvLW5vdC11c2UtaW4tcHJvZHVjdGlvbi0wMTIzNDU2Nzg5";
+
+	private JwtUtils jwtUtils;
+	private Authentication authentication;
+	private String token;
+
+	@Setup
+	public void setUp() {
+		jwtUtils = new JwtUtils();
+		ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+		jwtUtils.init();
+
+		AccountDetails account = new AccountDetails(42L, "recruiter42", "",
+				List.of(new SimpleGrantedAuthority("ROLE_USER")));
+		authentication = new UsernamePasswordAuthenticationToken(account, null, account.getAuthorities());
+		token = jwtUtils.generateJwtToken(authentication);
+	}
+
+	@Benchmark
+	public Claims parse() {
+		return jwtUtils.parseJwtToken(token);
+	}
+
+	@Benchmark
+	public String generate() {
+		return jwtUtils.generateJwtToken(authentication);
+	}
+}
@@ -0,0 +1,57 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.Fixtures;
+import com.example.resumeanalyzer.model.AnalysisStatus;
+import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binding an NLP reply and applying it to its analysis, as the reply consumer does
+ * for every record of a poll.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplyMappingBenchmark {
+
+	private ObjectReader replyReader;
+	private String reply;
+
+	@Setup
+	public void setUp() {
+		replyReader = new ObjectMapper().findAndRegisterModules()
+				.readerFor(ResumeAnalysisConsumer.AnalysisReply.class);
+		reply = Fixtures.read("analysis-reply.json");
+	}
+
+	@Benchmark
+	public ResumeAnalysisConsumer.AnalysisReply bind() throws Exception {
+		return replyReader.readValue(reply);
+	}
+
+	@Benchmark
+	public ResumeAnalysis bindAndApply() throws Exception {
+		ResumeAnalysisConsumer.AnalysisReply parsed = replyReader.readValue(reply);
+		ResumeAnalysis analysis = new ResumeAnalysis();
+		analysis.setJobTitle("Pending Analysis");
+		analysis.setStatus(AnalysisStatus.PENDING);
+		ResumeAnalysisConsumer.apply(analysis, parsed.analysis());
+		return analysis;
+	}
+}
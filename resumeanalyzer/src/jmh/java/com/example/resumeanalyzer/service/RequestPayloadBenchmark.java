@@ -0,0 +1,50 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.Fixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing the analysis request published for every submission, with a text
+ * resume inlined as the NLP service receives it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestPayloadBenchmark {
+
+	private ResumeAnalysisProducer producer;
+	private String resumeText;
+	private String jobDescription;
+
+	@Setup
+	public void setUp() {
+		producer = new ResumeAnalysisProducer(null, new ObjectMapper().findAndRegisterModules(), null, null);
+		resumeText = Fixtures.read("resume.txt");
+		jobDescription = Fixtures.read("job-description.txt");
+	}
+
+	@Benchmark
+	public String textResume() throws Exception {
+		return producer.requestPayload(48213L, 1, resumeText, jobDescription);
+	}
+
+	@Benchmark
+	public String storedResume() throws Exception {
+		return producer.requestPayload(48213L, 1, "Resume file: 3f1c9a7e0b.pdf", jobDescription);
+	}
+}
@@ -0,0 +1,70 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.Fixtures;
+import com.example.resumeanalyzer.model.AnalysisResult;
+import com.example.resumeanalyzer.model.AnalysisStatus;
+import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the result payload returned by the status and history endpoints, for an
+ * analysis with a typed result column and for a legacy row whose skills are stored
+ * as JSON text and re-parsed on every read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultMapBenchmark {
+
+	private AnalysisResultMapper resultMapper;
+	private ResumeAnalysis typed;
+	private ResumeAnalysis legacy;
+
+	@Setup
+	public void setUp() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+		resultMapper = new AnalysisResultMapper(objectMapper);
+
+		AnalysisResult result = objectMapper.readerFor(ResumeAnalysisConsumer.AnalysisReply.class)
+				.<ResumeAnalysisConsumer.AnalysisReply>readValue(Fixtures.read("analysis-reply.json"))
+				.analysis();
+
+		typed = new ResumeAnalysis();
+		typed.setStatus(AnalysisStatus.COMPLETED);
+		ResumeAnalysisConsumer.apply(typed, result);
+
+		legacy = new ResumeAnalysis();
+		legacy.setStatus(AnalysisStatus.COMPLETED);
+		legacy.setSuitabilityScore(result.compatibilityScore());
+		legacy.setSummary(result.summary());
+		legacy.setMatchedSkills(objectMapper.writeValueAsString(result.matchedSkills()));
+		legacy.setMissingSkills(objectMapper.writeValueAsString(result.missingSkills()));
+		legacy.setRecommendation(String.join("\n\n", result.recommendations()));
+	}
+
+	@Benchmark
+	public Map<String, Object> typedResult() {
+		return resultMapper.toResultMap(typed);
+	}
+
+	@Benchmark
+	public Map<String, Object> legacyResult() {
+		return resultMapper.toResultMap(legacy);
+	}
+}
@@ -0,0 +1,174 @@
+package com.example.resumeanalyzer.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Stands in for the Python NLP service: consumes analysis requests and, after a
+ * processing time drawn from a {@link LatencyDistribution}, replies with a result
+ * scored by skill overlap. {@code workers} requests are processed at a time, like
+ * that many NLP worker processes, so the stand-in saturates the way the real one does.
+ * A share of requests can be dropped without a reply, as the real service does with
+ * requests it fails on, and a share of replies sent twice, as Kafka may deliver them.
+ */
+public class FakeNlpService implements AutoCloseable {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final KafkaConsumer<String, String> consumer;
+	private final KafkaProducer<String, String> producer;
+	private final ExecutorService workers;
+	private final LatencyDistribution latency;
+	private final double dropRate;
+	private final double duplicateRate;
+	private final InMemoryObjectStore objectStore;
+	private final String requestTopic;
+	private final String responseTopic;
+	private final Thread pollThread;
+	private final AtomicLong replies = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private volatile boolean running = true;
+
+	public FakeNlpService(String bootstrapServers, String requestTopic, String responseTopic, int workerCount,
+			LatencyDistribution latency, double dropRate, double duplicateRate, InMemoryObjectStore objectStore) {
+		this.requestTopic = requestTopic;
+		this.responseTopic = responseTopic;
+		this.latency = latency;
+		this.dropRate = dropRate;
+		this.duplicateRate = duplicateRate;
+		this.objectStore = objectStore;
+		this.workers = Executors.newFixedThreadPool(workerCount);
+
+		Map<String, Object> consumerProps = Map.of(
+				ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+				ConsumerConfig.GROUP_ID_CONFIG, "fake-nlp-service",
+				ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+				ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+				ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+		this.consumer = new KafkaConsumer<>(consumerProps);
+
+		Map<String, Object> producerProps = Map.of(
+				ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+				ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+				ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+		this.producer = new KafkaProducer<>(producerProps);
+
+		this.pollThread = new Thread(this::poll, "fake-nlp-poll");
+	}
+
+	public void start() {
+		consumer.subscribe(List.of(requestTopic));
+		pollThread.start();
+	}
+
+	public long replies() {
+		return replies.get();
+	}
+
+	public long dropped() {
+		return dropped.get();
+	}
+
+	private void poll() {
+		while (running) {
+			for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(200))) {
+				workers.execute(() -> process(record));
+			}
+		}
+		consumer.close();
+	}
+
+	private void process(ConsumerRecord<String, String> record) {
+		try {
+			long started = System.currentTimeMillis();
+			JsonNode request = objectMapper.readTree(record.value());
+			JsonNode claim = request.get("claim_check");
+			if (claim != null) {
+				byte[] stored = objectStore.get(claim.get("bucket").asText(), claim.get("object").asText());
+				request = objectMapper.readTree(new GZIPInputStream(new ByteArrayInputStream(stored)));
+			}
+
+			Thread.sleep(latency.sampleMillis());
+			if (ThreadLocalRandom.current().nextDouble() < dropRate) {
+				dropped.incrementAndGet();
+				return;
+			}
+
+			Map<String, Object> reply = new LinkedHashMap<>();
+			reply.put("candidate_id", request.get("candidate_id").asLong());
+			reply.put("attempt", request.path("attempt").asInt(1));
+			reply.put("analysis", analyse(request.path("resume_text").asText(), request.path("job_description").asText()));
+			reply.put("timings", Map.of(
+					"queued_ms", Math.max(0, started - record.timestamp()),
+					"processing_ms", System.currentTimeMillis() - started));
+			String message = objectMapper.writeValueAsString(reply);
+			producer.send(new ProducerRecord<>(responseTopic, record.key(), message));
+			if (ThreadLocalRandom.current().nextDouble() < duplicateRate) {
+				producer.send(new ProducerRecord<>(responseTopic, record.key(), message));
+			}
+			replies.incrementAndGet();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			System.err.println("Fake NLP service failed to process a request: " + e.getMessage());
+		}
+	}
+
+	private static Map<String, Object> analyse(String resumeText, String jobDescription) {
+		String resume = resumeText.toLowerCase(Locale.ROOT);
+		String job = jobDescription.toLowerCase(Locale.ROOT);
+		List<String> matched = new ArrayList<>();
+		List<String> missing = new ArrayList<>();
+		for (String skill : SyntheticCorpus.SKILLS) {
+			String term = skill.toLowerCase(Locale.ROOT);
+			if (job.contains(term)) {
+				(resume.contains(term) ? matched : missing).add(skill);
+			}
+		}
+		int required = matched.size() + missing.size();
+		int score = required == 0 ? 50 : Math.round(100f * matched.size() / required);
+
+		Map<String, Object> analysis = new LinkedHashMap<>();
+		analysis.put("compatibility_score", score);
+		analysis.put("is_suitable", score >= 50);
+		analysis.put("summary", "Matches " + matched.size() + " of " + required + " skills in the job description.");
+		analysis.put("experience_level", score >= 75 ? "Senior" : score >= 40 ? "Mid" : "Junior");
+		analysis.put("matched_skills", matched);
+		analysis.put("missing_skills", missing);
+		analysis.put("strengths", matched.stream().limit(3).map(skill -> "Experience with " + skill).toList());
+		analysis.put("recommendations", missing.stream().limit(3).map(skill -> "Add evidence of " + skill).toList());
+		analysis.put("ats_keywords", matched);
+		analysis.put("interview_tips", "Prepare examples that show impact.");
+		return analysis;
+	}
+
+	@Override
+	public void close() throws InterruptedException {
+		running = false;
+		pollThread.join();
+		workers.shutdownNow();
+		workers.awaitTermination(5, TimeUnit.SECONDS);
+		producer.close();
+	}
+}
@@ -0,0 +1,155 @@
+package com.example.resumeanalyzer.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Just enough of the S3 API, served in-process, for the MinIO client the backend
+ * uses: bucket exists/create and object put, stat, get and delete, path-style.
+ * Request signatures are not checked.
+ */
+public class InMemoryObjectStore implements AutoCloseable {
+
+	private record StoredObject(byte[] content, String contentType, String etag, ZonedDateTime lastModified) {
+	}
+
+	private final Set<String> buckets = ConcurrentHashMap.newKeySet();
+	private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+	private final HttpServer server;
+
+	public InMemoryObjectStore() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", this::handle);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+	}
+
+	public String url() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	public byte[] get(String bucket, String object) {
+		StoredObject stored = objects.get(bucket + "/" + object);
+		return stored != null ? stored.content() : null;
+	}
+
+	public int objectCount() {
+		return objects.size();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			String path = exchange.getRequestURI().getPath().substring(1);
+			int slash = path.indexOf('/');
+			String bucket = slash < 0 ? path : path.substring(0, slash);
+			String object = slash < 0 || slash == path.length() - 1 ? null : path.substring(slash + 1);
+			String method = exchange.getRequestMethod();
+
+			if (object == null) {
+				handleBucket(exchange, method, bucket);
+			} else {
+				handleObject(exchange, method, bucket, object);
+			}
+		}
+	}
+
+	private void handleBucket(HttpExchange exchange, String method, String bucket) throws IOException {
+		switch (method) {
+			case "HEAD" -> respond(exchange, buckets.contains(bucket) ? 200 : 404, null);
+			case "PUT" -> {
+				buckets.add(bucket);
+				respond(exchange, 200, new byte[0]);
+			}
+			default -> respond(exchange, 501, new byte[0]);
+		}
+	}
+
+	private void handleObject(HttpExchange exchange, String method, String bucket, String object) throws IOException {
+		String key = bucket + "/" + object;
+		switch (method) {
+			case "PUT" -> {
+				byte[] content;
+				try (InputStream in = exchange.getRequestBody()) {
+					content = in.readAllBytes();
+				}
+				String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+				StoredObject stored = new StoredObject(content, contentType, etag(content),
+						ZonedDateTime.now(ZoneOffset.UTC));
+				objects.put(key, stored);
+				exchange.getResponseHeaders().add("ETag", "\"" + stored.etag() + "\"");
+				respond(exchange, 200, new byte[0]);
+			}
+			case "HEAD", "GET" -> {
+				StoredObject stored = objects.get(key);
+				if (stored == null) {
+					if ("GET".equals(method)) {
+						exchange.getResponseHeaders().add("Content-Type", "application/xml");
+						respond(exchange, 404, ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>NoSuchKey</Code>"
+								+ "<Message>The specified key does not exist.</Message><Key>" + object + "</Key>"
+								+ "<BucketName>" + bucket + "</BucketName></Error>").getBytes());
+					} else {
+						respond(exchange, 404, null);
+					}
+					return;
+				}
+				exchange.getResponseHeaders().add("ETag", "\"" + stored.etag() + "\"");
+				exchange.getResponseHeaders().add("Last-Modified",
+						DateTimeFormatter.RFC_1123_DATE_TIME.format(stored.lastModified()));
+				exchange.getResponseHeaders().add("Content-Type",
+						stored.contentType() != null ? stored.contentType() : "application/octet-stream");
+				if ("HEAD".equals(method)) {
+					exchange.getResponseHeaders().add("Content-Length", String.valueOf(stored.content().length));
+					respond(exchange, 200, null);
+				} else {
+					respond(exchange, 200, stored.content());
+				}
+			}
+			case "DELETE" -> {
+				objects.remove(key);
+				respond(exchange, 204, null);
+			}
+			default -> respond(exchange, 501, new byte[0]);
+		}
+	}
+
+	// A null body sends headers only, as HEAD and 204 responses require
+	private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+		if (body == null) {
+			exchange.sendResponseHeaders(status, -1);
+			return;
+		}
+		exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+		if (body.length > 0) {
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		}
+	}
+
+	private static String etag(byte[] content) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content));
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
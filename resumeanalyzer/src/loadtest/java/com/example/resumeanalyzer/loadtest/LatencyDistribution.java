@@ -0,0 +1,34 @@
+package com.example.resumeanalyzer.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Processing time of the fake NLP service, parsed from a spec such as
+ * {@code fixed:2000}, {@code uniform:500:4000} or {@code lognormal:2000:0.6}
+ * (median in milliseconds, then the sigma of the underlying normal).
+ */
+public interface LatencyDistribution {
+
+	long sampleMillis();
+
+	static LatencyDistribution parse(String spec) {
+		String[] parts = spec.trim().split(":");
+		switch (parts[0]) {
+			case "fixed" -> {
+				long millis = Long.parseLong(parts[1]);
+				return () -> millis;
+			}
+			case "uniform" -> {
+				long min = Long.parseLong(parts[1]);
+				long max = Long.parseLong(parts[2]);
+				return () -> ThreadLocalRandom.current().nextLong(min, max + 1);
+			}
+			case "lognormal" -> {
+				double mu = Math.log(Double.parseDouble(parts[1]));
+				double sigma = Double.parseDouble(parts[2]);
+				return () -> Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+			}
+			default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+		}
+	}
+}
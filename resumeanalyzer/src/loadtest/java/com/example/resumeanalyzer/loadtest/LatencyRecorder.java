@@ -0,0 +1,62 @@
+package com.example.resumeanalyzer.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of one operation. Samples are kept in full (a run of a few
+ * minutes at a few hundred requests per second is a few megabytes) so percentiles
+ * are exact.
+ */
+public class LatencyRecorder {
+
+	private final String operation;
+	private long[] samples = new long[1024];
+	private int count;
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public LatencyRecorder(String operation) {
+		this.operation = operation;
+	}
+
+	public synchronized void success(long nanos) {
+		if (count == samples.length) {
+			samples = Arrays.copyOf(samples, count * 2);
+		}
+		samples[count++] = nanos;
+		maxNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	/** The backend refused the request on purpose (429 or 503 with Retry-After). */
+	public void rejected() {
+		rejected.increment();
+	}
+
+	public void error() {
+		errors.increment();
+	}
+
+	public synchronized String report(double elapsedSeconds) {
+		long[] sorted = Arrays.copyOf(samples, count);
+		Arrays.sort(sorted);
+		return String.format("%-20s %8d %8d %8d %9.1f %9.1f %9.1f %9.1f %9.1f", operation, count, rejected.sum(),
+				errors.sum(), count / elapsedSeconds, millis(sorted, 0.50), millis(sorted, 0.95), millis(sorted, 0.99),
+				maxNanos.get() / 1e6);
+	}
+
+	public static String header() {
+		return String.format("%-20s %8s %8s %8s %9s %9s %9s %9s %9s", "operation", "ok", "rejected", "errors",
+				"ok/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+	}
+
+	private static double millis(long[] sorted, double quantile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(quantile * sorted.length) - 1;
+		return sorted[Math.max(0, index)] / 1e6;
+	}
+}
@@ -0,0 +1,217 @@
+package com.example.resumeanalyzer.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the backend at a fixed arrival rate (an open model: requests are issued on
+ * schedule whether or not earlier ones have finished). Latency is measured from the
+ * scheduled send time, so a backend that falls behind shows up in the percentiles
+ * instead of silently lowering the offered load.
+ */
+public class LoadDriver {
+
+	public record Account(String username, String token) {
+	}
+
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+	private static final long COMPLETION_POLL_SECONDS = 30;
+
+	private final HttpClient http;
+	private final String baseUrl;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final SyntheticCorpus corpus;
+	private final List<String> jobDescriptions;
+	private final List<Account> users;
+	private final Account admin;
+	private final Map<String, Integer> mix;
+	private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+	private final AtomicLong uploads = new AtomicLong();
+
+	public LoadDriver(HttpClient http, String baseUrl, SyntheticCorpus corpus, int jobDescriptionCount,
+			List<Account> users, Account admin, Map<String, Integer> mix) {
+		this.http = http;
+		this.baseUrl = baseUrl;
+		this.corpus = corpus;
+		this.users = users;
+		this.admin = admin;
+		this.mix = mix;
+		this.jobDescriptions = new ArrayList<>();
+		for (int i = 0; i < jobDescriptionCount; i++) {
+			jobDescriptions.add(corpus.jobDescription());
+		}
+		for (String operation : List.of("analyze", "analysis-complete", "history", "admin")) {
+			recorders.put(operation, new LatencyRecorder(operation));
+		}
+	}
+
+	/**
+	 * Offers {@code rps} requests per second for {@code duration}, then waits up to
+	 * {@code drain} for analyses already accepted to complete, and prints the report.
+	 */
+	public void run(double rps, Duration duration, Duration drain) throws InterruptedException {
+		List<String> schedule = expandMix();
+		long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rps);
+		long start = System.nanoTime();
+		long end = start + duration.toNanos();
+
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		long sent = 0;
+		for (long next = start; next < end; next += intervalNanos) {
+			long wait = next - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			String operation = schedule.get((int) (sent++ % schedule.size()));
+			long scheduledAt = next;
+			executor.execute(() -> perform(operation, scheduledAt));
+		}
+		double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+		executor.shutdown();
+		if (!executor.awaitTermination(drain.toMillis(), TimeUnit.MILLISECONDS)) {
+			System.out.println("Drain timed out; analyses still pending are not counted");
+			executor.shutdownNow();
+		}
+
+		System.out.printf("%nOffered %.1f req/s for %.0f s (%d requests, %d uploads)%n", rps, elapsedSeconds, sent,
+				uploads.get());
+		System.out.println(LatencyRecorder.header());
+		recorders.values().forEach(recorder -> System.out.println(recorder.report(elapsedSeconds)));
+	}
+
+	// Interleaves the weighted operations so every second of the run sees the same mix
+	private List<String> expandMix() {
+		List<String> schedule = new ArrayList<>();
+		int remaining;
+		Map<String, Integer> left = new LinkedHashMap<>(mix);
+		do {
+			remaining = 0;
+			for (Map.Entry<String, Integer> entry : left.entrySet()) {
+				if (entry.getValue() > 0) {
+					schedule.add(entry.getKey());
+					entry.setValue(entry.getValue() - 1);
+					remaining += entry.getValue();
+				}
+			}
+		} while (remaining > 0);
+		return schedule;
+	}
+
+	private void perform(String operation, long scheduledAt) {
+		Account user = users.get(ThreadLocalRandom.current().nextInt(users.size()));
+		try {
+			switch (operation) {
+				case "analyze" -> analyze(user, scheduledAt);
+				case "history" -> timed("history", scheduledAt, get(user, "/api/profile/history?size=20"));
+				case "admin" -> timed("admin", scheduledAt, get(admin, adminPath()));
+				default -> throw new IllegalArgumentException("Unknown operation " + operation);
+			}
+		} catch (Exception e) {
+			recorders.get(operation).error();
+		}
+	}
+
+	private void analyze(Account user, long scheduledAt) throws Exception {
+		String boundary = UUID.randomUUID().toString();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		part(body, boundary, "resume", "resume-" + uploads.incrementAndGet() + ".txt", corpus.resume());
+		part(body, boundary, "jobDescription", null,
+				jobDescriptions.get(ThreadLocalRandom.current().nextInt(jobDescriptions.size())));
+		body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+		HttpRequest request = authorized(user, "/api/analyze")
+				.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+				.build();
+		HttpResponse<String> response = timed("analyze", scheduledAt, request);
+		if (response == null || response.statusCode() != 202) {
+			return;
+		}
+
+		// Follow the analysis to completion the way the frontend does, by long-polling its status
+		JsonNode accepted = objectMapper.readTree(response.body());
+		String status = accepted.path("status").asText();
+		String statusUrl = accepted.path("statusUrl").asText();
+		while ("PENDING".equals(status)) {
+			HttpResponse<String> poll = http.send(authorized(user, statusUrl + "?wait=" + COMPLETION_POLL_SECONDS)
+					.GET().build(), HttpResponse.BodyHandlers.ofString());
+			if (poll.statusCode() != 200) {
+				recorders.get("analysis-complete").error();
+				return;
+			}
+			status = objectMapper.readTree(poll.body()).path("status").asText();
+		}
+		if ("COMPLETED".equals(status)) {
+			recorders.get("analysis-complete").success(System.nanoTime() - scheduledAt);
+		} else {
+			recorders.get("analysis-complete").error();
+		}
+	}
+
+	private String adminPath() {
+		return switch (ThreadLocalRandom.current().nextInt(3)) {
+			case 0 -> "/api/admin/stats";
+			case 1 -> "/api/admin/users?page=0&size=20";
+			default -> "/api/admin/analyses?page=0&size=20";
+		};
+	}
+
+	private HttpRequest get(Account account, String path) {
+		return authorized(account, path).GET().build();
+	}
+
+	private HttpRequest.Builder authorized(Account account, String path) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.timeout(REQUEST_TIMEOUT)
+				.header("Authorization", "Bearer " + account.token());
+	}
+
+	private HttpResponse<String> timed(String operation, long scheduledAt, HttpRequest request) throws Exception {
+		HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+		long nanos = System.nanoTime() - scheduledAt;
+		LatencyRecorder recorder = recorders.get(operation);
+		int status = response.statusCode();
+		if (status >= 200 && status < 300) {
+			recorder.success(nanos);
+			return response;
+		}
+		if (status == 429 || status == 503) {
+			recorder.rejected();
+		} else {
+			recorder.error();
+		}
+		return null;
+	}
+
+	private static void part(ByteArrayOutputStream body, String boundary, String name, String fileName, String value) {
+		StringBuilder header = new StringBuilder("--").append(boundary).append("\r\n")
+				.append("Content-Disposition: form-data; name=\"").append(name).append('"');
+		if (fileName != null) {
+			header.append("; filename=\"").append(fileName).append("\"\r\nContent-Type: text/plain");
+		}
+		header.append("\r\n\r\n");
+		body.writeBytes(header.toString().getBytes(StandardCharsets.UTF_8));
+		body.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+		body.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,179 @@
+package com.example.resumeanalyzer.loadtest;
+
+import com.example.resumeanalyzer.ResumeanalyzerApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the whole backend in one JVM against in-process infrastructure and drives it
+ * at a target request rate:
+ * <ul>
+ * <li>an embedded single-node Kafka (KRaft) broker,</li>
+ * <li>{@link InMemoryObjectStore} in place of MinIO,</li>
+ * <li>H2 in PostgreSQL mode in place of Postgres,</li>
+ * <li>{@link FakeNlpService} in place of the Python NLP service and Ollama.</li>
+ * </ul>
+ *
+ * All arguments are passed to the backend as Spring properties, so any {@code app.*}
+ * or {@code kafka.*} setting can be varied between runs. The harness itself reads:
+ * <pre>
+ * --loadtest.rps=20                    offered requests per second
+ * --loadtest.duration-seconds=60
+ * --loadtest.drain-seconds=120         time allowed for accepted analyses to finish
+ * --loadtest.users=50                  synthetic accounts the load is spread over
+ * --loadtest.mix=analyze:5,history:4,admin:1
+ * --loadtest.job-descriptions=20       distinct job descriptions in the corpus
+ * --loadtest.seed=42
+ * --loadtest.nlp.workers=8             requests the fake NLP service processes at once
+ * --loadtest.nlp.latency=lognormal:1500:0.5
+ * --loadtest.nlp.drop-rate=0           share of requests the fake NLP service never answers
+ * --loadtest.nlp.duplicate-rate=0      share of replies it sends twice
+ * </pre>
+ */
+public class LoadTestHarness {
+
+	// The account AdminSeeder creates on startup
+	private static final String ADMIN_USERNAME = "AnwarTamasna";
+	private static final String ADMIN_PASSWORD = "anwartamasna";
+
+	private static final String REQUEST_TOPIC = "resume-analysis-request";
+	private static final String RESPONSE_TOPIC = "resume-analysis-response";
+
+	public static void main(String[] args) throws Exception {
+		// One offsets partition instead of 50 keeps the group coordinator quick to come up on small machines
+		EmbeddedKafkaKraftBroker kafka = new EmbeddedKafkaKraftBroker(1, 6, REQUEST_TOPIC, RESPONSE_TOPIC);
+		kafka.brokerProperty("offsets.topic.num.partitions", "1");
+		kafka.afterPropertiesSet();
+		ConfigurableApplicationContext app = null;
+		FakeNlpService nlp = null;
+
+		try (InMemoryObjectStore objectStore = new InMemoryObjectStore()) {
+			app = new SpringApplicationBuilder(ResumeanalyzerApplication.class)
+					.run(backendArguments(args, kafka.getBrokersAsString(), objectStore.url()));
+			Environment env = app.getEnvironment();
+			String baseUrl = "http://localhost:" + env.getProperty("local.server.port");
+
+			nlp = new FakeNlpService(kafka.getBrokersAsString(), env.getProperty("kafka.topic.request"),
+					env.getProperty("kafka.topic.response"), env.getProperty("loadtest.nlp.workers", Integer.class, 8),
+					LatencyDistribution.parse(env.getProperty("loadtest.nlp.latency", "lognormal:1500:0.5")),
+					env.getProperty("loadtest.nlp.drop-rate", Double.class, 0.0),
+					env.getProperty("loadtest.nlp.duplicate-rate", Double.class, 0.0), objectStore);
+			nlp.start();
+
+			HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+			ObjectMapper objectMapper = new ObjectMapper();
+			int userCount = env.getProperty("loadtest.users", Integer.class, 50);
+			List<LoadDriver.Account> users = new ArrayList<>();
+			for (int i = 0; i < userCount; i++) {
+				users.add(signUp(http, objectMapper, baseUrl, "loadtest_user_" + i));
+			}
+			LoadDriver.Account admin = login(http, objectMapper, baseUrl, ADMIN_USERNAME, ADMIN_PASSWORD);
+
+			LoadDriver driver = new LoadDriver(http, baseUrl,
+					new SyntheticCorpus(env.getProperty("loadtest.seed", Long.class, 42L)),
+					env.getProperty("loadtest.job-descriptions", Integer.class, 20), users, admin,
+					parseMix(env.getProperty("loadtest.mix", "analyze:5,history:4,admin:1")));
+			driver.run(env.getProperty("loadtest.rps", Double.class, 20.0),
+					Duration.ofSeconds(env.getProperty("loadtest.duration-seconds", Long.class, 60L)),
+					Duration.ofSeconds(env.getProperty("loadtest.drain-seconds", Long.class, 120L)));
+			System.out.println("Fake NLP service replied to " + nlp.replies() + " requests and dropped "
+					+ nlp.dropped() + "; " + objectStore.objectCount() + " objects stored");
+		} finally {
+			if (nlp != null) {
+				nlp.close();
+			}
+			if (app != null) {
+				SpringApplication.exit(app);
+			}
+			kafka.destroy();
+		}
+	}
+
+	// Command-line arguments take precedence over application.properties, so the
+	// in-process infrastructure replaces whatever a local config points at
+	private static String[] backendArguments(String[] args, String bootstrapServers, String objectStoreUrl) {
+		List<String> arguments = new ArrayList<>(List.of(
+				"--server.port=0",
+				"--spring.kafka.bootstrap-servers=" + bootstrapServers,
+				"--kafka.topic.request=" + REQUEST_TOPIC,
+				"--kafka.topic.response=" + RESPONSE_TOPIC,
+				"--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+						+ "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.hibernate.ddl-auto=create",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--minio.url=" + objectStoreUrl,
+				"--minio.access-key=loadtest",
+				"--minio.secret-key=loadtest-secret",
+				"--minio.bucket-name=resumes",
+				"--jwt.secret=5367566B59703373367639792F423F4528482B4D6251655468576D5A71347437",
+				// Synthetic users submit far faster than people do; keep the per-user limit out of the way
+				"--app.admission.user.rate-per-minute=6000",
+				"--app.admission.user.burst=100"));
+		// A setting given on the command line replaces the default above; Spring would otherwise join the two
+		Set<String> overridden = Arrays.stream(args).map(LoadTestHarness::propertyName).collect(Collectors.toSet());
+		arguments.removeIf(argument -> overridden.contains(propertyName(argument)));
+		arguments.addAll(Arrays.asList(args));
+		return arguments.toArray(String[]::new);
+	}
+
+	private static String propertyName(String argument) {
+		int equals = argument.indexOf('=');
+		return equals >= 0 ? argument.substring(0, equals) : argument;
+	}
+
+	private static Map<String, Integer> parseMix(String spec) {
+		Map<String, Integer> mix = new LinkedHashMap<>();
+		for (String entry : spec.split(",")) {
+			String[] parts = entry.trim().split(":");
+			mix.put(parts[0], Integer.parseInt(parts[1]));
+		}
+		return mix;
+	}
+
+	private static LoadDriver.Account signUp(HttpClient http, ObjectMapper objectMapper, String baseUrl,
+			String username) throws Exception {
+		post(http, objectMapper, baseUrl + "/api/auth/register", Map.of("username", username,
+				"email", username + "@loadtest.example.com", "fullName", "Load Test " + username,
+				"password", "loadtest-password"));
+		return login(http, objectMapper, baseUrl, username, "loadtest-password");
+	}
+
+	private static LoadDriver.Account login(HttpClient http, ObjectMapper objectMapper, String baseUrl,
+			String username, String password) throws Exception {
+		HttpResponse<String> response = post(http, objectMapper, baseUrl + "/api/auth/login",
+				Map.of("username", username, "password", password));
+		if (response.statusCode() != 200) {
+			throw new IllegalStateException("Login failed for " + username + ": " + response.body());
+		}
+		return new LoadDriver.Account(username, objectMapper.readTree(response.body()).get("token").asText());
+	}
+
+	private static HttpResponse<String> post(HttpClient http, ObjectMapper objectMapper, String url,
+			Map<String, String> body) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+				.build();
+		return http.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+}
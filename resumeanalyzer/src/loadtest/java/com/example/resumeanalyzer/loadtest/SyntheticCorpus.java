@@ -0,0 +1,85 @@
+package com.example.resumeanalyzer.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+
+/**
+ * Generates plain-text resumes and job descriptions drawn from a shared skill
+ * vocabulary, so that pairs overlap by varying amounts like real submissions do.
+ * Seeded, so two runs with the same seed upload the same corpus.
+ */
+public class SyntheticCorpus {
+
+	static final List<String> SKILLS = List.of(
+			"Java", "Spring Boot", "Kafka", "PostgreSQL", "Docker", "Kubernetes", "Terraform", "AWS", "GCP",
+			"Python", "Go", "TypeScript", "React", "Node.js", "GraphQL", "gRPC", "REST APIs", "Redis",
+			"Elasticsearch", "Prometheus", "Grafana", "CI/CD", "Git", "JUnit", "Microservices", "Hibernate",
+			"SQL", "Linux", "Airflow", "Spark", "Machine Learning", "Pandas", "Scrum", "System Design");
+
+	private static final List<String> TITLES = List.of(
+			"Backend Engineer", "Senior Software Engineer", "Platform Engineer", "Data Engineer",
+			"Full Stack Developer", "Site Reliability Engineer", "Staff Engineer");
+
+	private static final List<String> COMPANIES = List.of(
+			"Northwind Logistics", "Contoso Payments", "Fabrikam Health", "Tailspin Travel", "Adventure Works",
+			"Wide World Importers", "Litware Analytics");
+
+	private static final List<String> ACHIEVEMENTS = List.of(
+			"Reduced p99 latency of a customer-facing API by %d%% through caching and query tuning.",
+			"Migrated %d services from a monolith to independently deployed microservices.",
+			"Built an event pipeline processing %d thousand messages per second.",
+			"Cut cloud spend by %d%% by right-sizing clusters and introducing autoscaling.",
+			"Mentored %d engineers and ran the team's code review practice.",
+			"Raised automated test coverage to %d%% and introduced contract testing.");
+
+	private final Random random;
+
+	public SyntheticCorpus(long seed) {
+		this.random = new Random(seed);
+	}
+
+	public synchronized String resume() {
+		String title = pick(TITLES);
+		int years = 1 + random.nextInt(15);
+		StringBuilder text = new StringBuilder();
+		text.append(pick(List.of("Alex", "Sam", "Jordan", "Taylor", "Morgan", "Riley"))).append(' ')
+				.append(pick(List.of("Smith", "Garcia", "Nguyen", "Müller", "Okafor", "Kowalski"))).append('\n')
+				.append(title).append('\n').append('\n')
+				.append("SUMMARY\n")
+				.append(title).append(" with ").append(years).append(" years of experience building production systems.\n\n")
+				.append("EXPERIENCE\n");
+		int jobs = 1 + random.nextInt(4);
+		for (int i = 0; i < jobs; i++) {
+			text.append(pick(TITLES)).append(", ").append(pick(COMPANIES)).append('\n');
+			int bullets = 2 + random.nextInt(4);
+			for (int b = 0; b < bullets; b++) {
+				text.append("- ").append(String.format(pick(ACHIEVEMENTS), 5 + random.nextInt(90))).append('\n');
+			}
+			text.append('\n');
+		}
+		text.append("SKILLS\n").append(String.join(", ", sample(4 + random.nextInt(12)))).append('\n');
+		return text.toString();
+	}
+
+	public synchronized String jobDescription() {
+		String title = pick(TITLES);
+		StringJoiner requirements = new StringJoiner("\n- ", "- ", "\n");
+		sample(4 + random.nextInt(6)).forEach(skill -> requirements.add("Hands-on experience with " + skill + "."));
+		return title + "\n\nWe are hiring a " + title.toLowerCase() + " to build and operate services used by "
+				+ "millions of customers.\n\nRequirements\n" + requirements
+				+ "\nNice to have\n- " + String.join("\n- ", sample(2 + random.nextInt(3))) + "\n";
+	}
+
+	private String pick(List<String> values) {
+		return values.get(random.nextInt(values.size()));
+	}
+
+	private List<String> sample(int count) {
+		List<String> shuffled = new ArrayList<>(SKILLS);
+		Collections.shuffle(shuffled, random);
+		return shuffled.subList(0, Math.min(count, shuffled.size()));
+	}
+}
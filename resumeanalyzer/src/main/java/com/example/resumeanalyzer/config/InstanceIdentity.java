@@ -0,0 +1,47 @@
+package com.example.resumeanalyzer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+/**
+ * Identifies this backend instance among its replicas. Set {@code app.instance-id}
+ * to pin it; otherwise it is derived from the host name (the pod or container name)
+ * and the server port, so a restarted instance keeps its id and its broadcast
+ * consumer group instead of leaving a new one behind on the broker each time.
+ */
+@Component
+public class InstanceIdentity {
+
+    private final String id;
+
+    public InstanceIdentity(@Value("${app.instance-id:}") String configuredId,
+            @Value("${server.port:8080}") String serverPort) {
+        if (configuredId != null && !configuredId.isBlank()) {
+            this.id = configuredId;
+        } else {
+            String host = hostName();
+            // With a random port (0) the port isn't known yet, so instances on one host are told apart randomly
+            this.id = host == null ? UUID.randomUUID().toString()
+                    : "0".equals(serverPort) ? host + "-" + UUID.randomUUID() : host + "-" + serverPort;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static String hostName() {
+        String fromEnvironment = System.getenv("HOSTNAME"); // pod name on Kubernetes, container id on Docker
+        if (fromEnvironment != null && !fromEnvironment.isBlank()) {
+            return fromEnvironment;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.resumeanalyzer.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.hibernate.type.format.jackson.JacksonJsonFormatMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JpaConfig {
+
+    @Value("${app.jpa.batch-size:50}")
+    private int batchSize;
+
+    // Lets saveAll() of many rows, e.g. a batch of analysis replies, go out as JDBC batches
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        return properties -> {
+            properties.put("hibernate.jdbc.batch_size", batchSize);
+            properties.put("hibernate.order_updates", true);
+            properties.put("hibernate.order_inserts", true);
+        };
+    }
+
+    // Open-in-view keeps the session of a request open until the response is written, including while a
+    // status long-poll waits. Handing the connection back after each transaction keeps those waits from
+    // holding pool connections; lazy loads outside a transaction still borrow one.
+    @Bean
+    public HibernatePropertiesCustomizer connectionReleaseCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    // JSON columns are (de)serialized with the application's ObjectMapper rather than one Hibernate builds itself
+    @Bean
+    public HibernatePropertiesCustomizer jsonFormatMapperCustomizer(ObjectMapper objectMapper) {
+        return properties -> properties.put(AvailableSettings.JSON_FORMAT_MAPPER,
+                new JacksonJsonFormatMapper(objectMapper));
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.resumeanalyzer.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -8,6 +10,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.core.*;
 
 import java.util.HashMap;
@@ -19,6 +23,55 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // Same switch Spring Boot uses for Tomcat and the task executors
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${kafka.topic.request}")
+    private String requestTopic;
+
+    @Value("${kafka.topic.response}")
+    private String responseTopic;
+
+    // NLP workers in one consumer group can't outnumber the partitions of the request topic
+    @Value("${kafka.topic.partitions:6}")
+    private int topicPartitions;
+
+    @Value("${kafka.topic.replication-factor:1}")
+    private short topicReplicationFactor;
+
+    @Value("${kafka.producer.linger-ms:10}")
+    private int producerLingerMs;
+
+    @Value("${kafka.producer.batch-size:65536}")
+    private int producerBatchSize;
+
+    @Value("${kafka.producer.compression-type:lz4}")
+    private String producerCompressionType;
+
+    // Bounds how long send() may block a request thread waiting for metadata when brokers are down
+    @Value("${kafka.producer.max-block-ms:5000}")
+    private int producerMaxBlockMs;
+
+    // Upper bound before a send future fails, so a lost publish surfaces well before clients give up polling
+    @Value("${kafka.producer.delivery-timeout-ms:15000}")
+    private int producerDeliveryTimeoutMs;
+
+    // Listener threads for the response topic; more than its partition count leaves some idle
+    @Value("${kafka.listener.concurrency:3}")
+    private int listenerConcurrency;
+
+    @Value("${kafka.listener.max-poll-records:200}")
+    private int listenerMaxPollRecords;
+
+    private final InstanceIdentity instanceIdentity;
+    private final MeterRegistry meterRegistry;
+
+    public KafkaConfig(InstanceIdentity instanceIdentity, MeterRegistry meterRegistry) {
+        this.instanceIdentity = instanceIdentity;
+        this.meterRegistry = meterRegistry;
+    }
+
     // Producer Configuration
     @Bean
     public ProducerFactory<String, String> producerFactory() {
@@ -26,7 +79,17 @@ public class KafkaConfig {
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, producerLingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, producerBatchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producerCompressionType);
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, producerMaxBlockMs);
+        configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, Math.min(10000, producerDeliveryTimeoutMs - producerLingerMs));
+        configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, producerDeliveryTimeoutMs);
+        DefaultKafkaProducerFactory<String, String> factory = new DefaultKafkaProducerFactory<>(configProps);
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
@@ -34,6 +97,16 @@ public class KafkaConfig {
         return new KafkaTemplate<>(producerFactory());
     }
 
+    @Bean
+    public NewTopic analysisRequestTopic() {
+        return TopicBuilder.name(requestTopic).partitions(topicPartitions).replicas(topicReplicationFactor).build();
+    }
+
+    @Bean
+    public NewTopic analysisResponseTopic() {
+        return TopicBuilder.name(responseTopic).partitions(topicPartitions).replicas(topicReplicationFactor).build();
+    }
+
     // Consumer Configuration
     @Bean
     public ConsumerFactory<String, String> consumerFactory() {
@@ -43,13 +116,60 @@ public class KafkaConfig {
         configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        return new DefaultKafkaConsumerFactory<>(configProps);
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, listenerMaxPollRecords);
+        // Publishes the client's own metrics, including records-lag-max per partition of the reply topic
+        DefaultKafkaConsumerFactory<String, String> factory = new DefaultKafkaConsumerFactory<>(configProps);
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        applyListenerThreading(factory, "kafka-listener-");
+        return factory;
+    }
+
+    // Hands each poll to the listener as one list, so replies can be applied with bulk queries
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> batchListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(listenerConcurrency);
+        applyListenerThreading(factory, "kafka-batch-");
+        return factory;
+    }
+
+    // Broadcast topics (completion notices, token revocations) are consumed by every instance in its
+    // own group, so that e.g. clients long-polling on any node are woken up whichever node persisted the result.
+    @Bean
+    public ConsumerFactory<String, String> broadcastConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "resume-broadcast-" + instanceIdentity.getId());
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // Only events published while this instance is running matter; its state is rebuilt on startup
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        return new DefaultKafkaConsumerFactory<>(configProps);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> broadcastListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(broadcastConsumerFactory());
+        applyListenerThreading(factory, "kafka-broadcast-");
         return factory;
     }
+
+    // Our factories are declared by hand, so Boot's virtual-thread auto-configuration doesn't reach them
+    private void applyListenerThreading(ConcurrentKafkaListenerContainerFactory<String, String> factory, String prefix) {
+        if (virtualThreadsEnabled) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix);
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
+    }
 }
@@ -17,11 +17,16 @@ public class MinioConfig {
     @Value("${minio.secret-key}")
     private String secretKey;
 
+    // A fixed region lets the client sign URLs locally instead of asking MinIO for the bucket location
+    @Value("${minio.region:us-east-1}")
+    private String region;
+
     @Bean
     public MinioClient minioClient() {
         return MinioClient.builder()
                 .endpoint(minioUrl)
                 .credentials(accessKey, secretKey)
+                .region(region)
                 .build();
     }
 }
@@ -0,0 +1,67 @@
+package com.example.resumeanalyzer.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier, typically while blocking
+ * inside a {@code synchronized} block of a driver or client library (JDBC, MinIO's
+ * OkHttp, the Kafka client). Pinned virtual threads hold a carrier thread hostage, so
+ * frequent events here mean the virtual-thread mode is not buying the expected
+ * concurrency for that code path.
+ *
+ * Enabled with {@code app.threads.pinning-diagnostics.enabled=true}; uses an in-process
+ * JFR stream, so no external tooling is required.
+ */
+@Component
+@ConditionalOnProperty(name = "app.threads.pinning-diagnostics.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_FRAMES = 8;
+
+    @Value("${app.threads.pinning-diagnostics.threshold-ms:20}")
+    private long thresholdMs;
+
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::report);
+        stream.startAsync();
+        System.out.println("Virtual thread pinning diagnostics enabled (threshold " + thresholdMs + " ms)");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void report(RecordedEvent event) {
+        StringBuilder sb = new StringBuilder("Virtual thread pinned for ")
+                .append(event.getDuration().toMillis()).append(" ms");
+        if (event.getStackTrace() != null) {
+            List<RecordedFrame> frames = event.getStackTrace().getFrames();
+            for (int i = 0; i < Math.min(MAX_FRAMES, frames.size()); i++) {
+                RecordedFrame frame = frames.get(i);
+                sb.append("\n    at ").append(frame.getMethod().getType().getName())
+                        .append('.').append(frame.getMethod().getName())
+                        .append(':').append(frame.getLineNumber());
+            }
+        }
+        System.err.println(sb);
+    }
+}
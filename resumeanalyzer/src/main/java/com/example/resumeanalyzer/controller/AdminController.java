@@ -1,8 +1,8 @@
 package com.example.resumeanalyzer.controller;
 
-import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.example.resumeanalyzer.model.AdminAnalysisSummary;
+import com.example.resumeanalyzer.model.AdminUserSummary;
 import com.example.resumeanalyzer.model.Role;
-import com.example.resumeanalyzer.model.User;
 import com.example.resumeanalyzer.service.AdminService;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
@@ -28,7 +28,7 @@ public class AdminController {
     public ResponseEntity<?> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        Page<User> users = adminService.getAllUsers(page, size);
+        Page<AdminUserSummary> users = adminService.getAllUsers(page, size);
         Map<String, Object> response = new HashMap<>();
         response.put("users", users.getContent().stream().map(this::mapUserToResponse).toList());
         response.put("currentPage", users.getNumber());
@@ -49,7 +49,7 @@ public class AdminController {
         try {
             String roleStr = request.get("role");
             Role role = Role.valueOf(roleStr.toUpperCase());
-            User updatedUser = adminService.updateUserRole(id, role);
+            AdminUserSummary updatedUser = adminService.updateUserRole(id, role);
             return ResponseEntity.ok(mapUserToResponse(updatedUser));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid role: " + request.get("role")));
@@ -74,7 +74,7 @@ public class AdminController {
     public ResponseEntity<?> getAllAnalyses(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        Page<ResumeAnalysis> analyses = adminService.getAllAnalyses(page, size);
+        Page<AdminAnalysisSummary> analyses = adminService.getAllAnalyses(page, size);
         Map<String, Object> response = new HashMap<>();
         response.put("analyses", analyses.getContent().stream().map(this::mapAnalysisToResponse).toList());
         response.put("currentPage", analyses.getNumber());
@@ -107,27 +107,32 @@ public class AdminController {
         return ResponseEntity.ok(adminService.getStats());
     }
 
+    @GetMapping("/stats/timeseries")
+    public ResponseEntity<?> getStatsTimeSeries(@RequestParam(defaultValue = "minute") String resolution) {
+        return ResponseEntity.ok(adminService.getStatsTimeSeries(resolution));
+    }
+
     // ==================== HELPERS ====================
 
-    private Map<String, Object> mapUserToResponse(User user) {
+    private Map<String, Object> mapUserToResponse(AdminUserSummary user) {
         Map<String, Object> map = new HashMap<>();
-        map.put("id", user.getId());
-        map.put("username", user.getUsername());
-        map.put("email", user.getEmail());
-        map.put("fullName", user.getFullName());
-        map.put("role", user.getRole().name());
-        map.put("analysisCount", user.getAnalysisHistory().size());
+        map.put("id", user.id());
+        map.put("username", user.username());
+        map.put("email", user.email());
+        map.put("fullName", user.fullName());
+        map.put("role", user.role().name());
+        map.put("analysisCount", user.analysisCount());
         return map;
     }
 
-    private Map<String, Object> mapAnalysisToResponse(ResumeAnalysis analysis) {
+    private Map<String, Object> mapAnalysisToResponse(AdminAnalysisSummary analysis) {
         Map<String, Object> map = new HashMap<>();
-        map.put("id", analysis.getId());
-        map.put("jobTitle", analysis.getJobTitle());
-        map.put("suitabilityScore", analysis.getSuitabilityScore());
-        map.put("createdAt", analysis.getCreatedAt().toString());
-        map.put("userId", analysis.getUser().getId());
-        map.put("username", analysis.getUser().getUsername());
+        map.put("id", analysis.id());
+        map.put("jobTitle", analysis.jobTitle());
+        map.put("suitabilityScore", analysis.suitabilityScore());
+        map.put("createdAt", analysis.createdAt().toString());
+        map.put("userId", analysis.userId());
+        map.put("username", analysis.username());
         return map;
     }
 }
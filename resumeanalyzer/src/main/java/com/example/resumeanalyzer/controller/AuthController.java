@@ -2,11 +2,17 @@ package com.example.resumeanalyzer.controller;
 
 import com.example.resumeanalyzer.model.User;
 import com.example.resumeanalyzer.repository.UserRepository;
+import com.example.resumeanalyzer.security.BoundedPasswordEncoder.PasswordHashingSaturatedException;
 import com.example.resumeanalyzer.security.JwtUtils;
+import com.example.resumeanalyzer.service.AdminStatsTracker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
@@ -22,13 +28,18 @@ public class AuthController {
     private final UserRepository userRepository;
     private final PasswordEncoder encoder;
     private final JwtUtils jwtUtils;
+    private final AdminStatsTracker statsTracker;
+
+    @Value("${app.password-hashing.retry-after-seconds:2}")
+    private long retryAfterSeconds;
 
     public AuthController(AuthenticationManager authenticationManager, UserRepository userRepository,
-            PasswordEncoder encoder, JwtUtils jwtUtils) {
+            PasswordEncoder encoder, JwtUtils jwtUtils, AdminStatsTracker statsTracker) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.encoder = encoder;
         this.jwtUtils = jwtUtils;
+        this.statsTracker = statsTracker;
     }
 
     @PostMapping("/login")
@@ -44,13 +55,21 @@ public class AuthController {
             SecurityContextHolder.getContext().setAuthentication(authentication);
             String jwt = jwtUtils.generateJwtToken(authentication);
 
-            // Get user role
-            User user = userRepository.findByUsername(username).orElse(null);
-            String role = user != null ? user.getRole().name() : "USER";
+            // Get user role from the details loaded during authentication
+            String role = authentication.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .filter(auth -> auth.startsWith("ROLE_"))
+                    .map(auth -> auth.substring(5))
+                    .findFirst()
+                    .orElse("USER");
 
             System.out.println("Login success for user: " + username + " with role: " + role);
             return ResponseEntity.ok(Map.of("token", jwt, "username", username, "role", role));
         } catch (Exception e) {
+            if (PasswordHashingSaturatedException.isCause(e)) {
+                System.err.println("Login rejected for user: " + username + ", password hashing is saturated");
+                return serviceBusy();
+            }
             System.err.println("Login failed for user: " + username + " Error: " + e.getMessage());
             return ResponseEntity.status(401).body(Map.of("error", "Invalid username or password"));
         }
@@ -74,10 +93,25 @@ public class AuthController {
             return ResponseEntity.badRequest().body(Map.of("error", "Email is already registered!"));
         }
 
-        User user = new User(username, email, fullName, encoder.encode(password));
+        String encodedPassword;
+        try {
+            encodedPassword = encoder.encode(password);
+        } catch (PasswordHashingSaturatedException e) {
+            System.err.println("Registration rejected for user: " + username + ", password hashing is saturated");
+            return serviceBusy();
+        }
+
+        User user = new User(username, email, fullName, encodedPassword);
         userRepository.save(user);
+        statsTracker.userRegistered();
         System.out.println("User saved to DB: " + username);
 
         return ResponseEntity.ok(Map.of("message", "User registered successfully!"));
     }
+
+    private ResponseEntity<?> serviceBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(Map.of("error", "Authentication service is busy, please retry shortly"));
+    }
 }
@@ -0,0 +1,153 @@
+package com.example.resumeanalyzer.controller;
+
+import com.example.resumeanalyzer.model.AnalysisBatch;
+import com.example.resumeanalyzer.security.JwtPrincipal;
+import com.example.resumeanalyzer.service.AnalysisAdmissionService;
+import com.example.resumeanalyzer.service.BatchAnalysisService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bulk analysis: one job description screened against many resumes.
+ */
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*", maxAge = 3600) // Allow all origins for dev
+public class BatchController {
+
+    @Autowired
+    private BatchAnalysisService batchAnalysisService;
+
+    @Autowired
+    private AnalysisAdmissionService admissionService;
+
+    // How long a bulk upload may take to store its resumes before the client is told to poll instead
+    @Value("${app.bulk.submit-timeout-seconds:300}")
+    private long submitTimeoutSeconds;
+
+    /**
+     * Queues every resume in the upload for analysis against the job description.
+     *
+     * @param resumes        Resume files sent as separate parts.
+     * @param archive        A zip archive of resume files.
+     * @param jobDescription The text of the job description.
+     * @return 202 Accepted with the batch id and the URLs to stream results from and to
+     *         cancel the batch once every resume is stored, 503 with the batch id if that
+     *         takes longer than {@code app.bulk.submit-timeout-seconds}, or 429 with
+     *         Retry-After when the user is over their limit.
+     */
+    @PostMapping("/analyze/bulk")
+    public DeferredResult<ResponseEntity<?>> analyzeBulk(
+            @RequestParam(value = "resumes", required = false) List<MultipartFile> resumes,
+            @RequestParam(value = "archive", required = false) MultipartFile archive,
+            @RequestParam("jobDescription") String jobDescription) {
+
+        DeferredResult<ResponseEntity<?>> deferred = new DeferredResult<>(submitTimeoutSeconds * 1000);
+        if (jobDescription.isBlank()) {
+            deferred.setResult(ResponseEntity.badRequest().body(Map.of("error", "Job description is required.")));
+            return deferred;
+        }
+
+        Long userId = JwtPrincipal.current().id();
+        AnalysisAdmissionService.Decision decision = admissionService.tryAdmitUser(userId);
+        if (!decision.admitted()) {
+            deferred.setResult(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()))
+                    .body(Map.of("error", decision.reason(), "retryAfterSeconds", decision.retryAfterSeconds())));
+            return deferred;
+        }
+
+        BatchAnalysisService.BatchUpload upload;
+        try {
+            upload = batchAnalysisService.submitBatch(userId, jobDescription, resumes, archive);
+        } catch (IllegalArgumentException e) {
+            deferred.setResult(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+            return deferred;
+        } catch (IOException e) {
+            System.err.println("Error reading bulk upload: " + e.getMessage());
+            deferred.setResult(ResponseEntity.badRequest().body(Map.of("error", "Could not read the uploaded files.")));
+            return deferred;
+        }
+
+        // The batch exists already, so a client that gave up waiting can still follow it
+        Long createdId = upload.batch().getId();
+        deferred.onTimeout(() -> {
+            System.err.println("Bulk upload of batch " + createdId + " is still being stored");
+            deferred.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .location(URI.create("/api/batches/" + createdId))
+                    .body(Map.of("error", "The upload is taking longer than expected; follow the batch for progress.",
+                            "batchId", createdId, "statusUrl", "/api/batches/" + createdId)));
+        });
+
+        // The resumes are read and stored off the request thread; the response goes out once they all are
+        upload.submission().whenComplete((submitted, failure) -> {
+            if (failure != null) {
+                System.err.println("Error submitting bulk upload: " + failure.getMessage());
+                deferred.setResult(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("error", "Could not queue the uploaded resumes.")));
+                return;
+            }
+            Long batchId = submitted.batch().getId();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("batchId", batchId);
+            response.put("totalItems", submitted.batch().getTotalItems());
+            response.put("skipped", submitted.skipped());
+            response.put("statusUrl", "/api/batches/" + batchId);
+            response.put("streamUrl", "/api/batches/" + batchId + "/stream");
+            response.put("cancelUrl", "/api/batches/" + batchId + "/cancel");
+            deferred.setResult(ResponseEntity.accepted().location(URI.create("/api/batches/" + batchId)).body(response));
+        });
+        return deferred;
+    }
+
+    /**
+     * Returns the progress of a batch and its analyses ranked by score.
+     */
+    @GetMapping("/batches/{id}")
+    public ResponseEntity<?> getBatch(@PathVariable Long id) {
+        return batchAnalysisService.findOwnedBatch(id, JwtPrincipal.current().id())
+                .<ResponseEntity<?>>map(batch -> ResponseEntity.ok(batchAnalysisService.toSnapshot(batch)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Streams the results of a batch as server-sent events while its analyses complete.
+     */
+    @GetMapping(value = "/batches/{id}/stream", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> streamBatch(@PathVariable Long id) {
+        return batchAnalysisService.findOwnedBatch(id, JwtPrincipal.current().id())
+                .map(batch -> ResponseEntity.ok(batchAnalysisService.stream(batch)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Cancels the analyses of a batch that have not been sent for analysis yet.
+     */
+    @PostMapping("/batches/{id}/cancel")
+    public ResponseEntity<?> cancelBatch(@PathVariable Long id) {
+        Optional<AnalysisBatch> batch = batchAnalysisService.findOwnedBatch(id, JwtPrincipal.current().id());
+        if (batch.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        int cancelled = batchAnalysisService.cancel(batch.get());
+        Map<String, Object> response = batchAnalysisService.toSnapshot(batch.get());
+        response.put("cancelledItems", cancelled);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,16 +1,24 @@
 package com.example.resumeanalyzer.controller;
 
+import com.example.resumeanalyzer.model.AnalysisResult;
+import com.example.resumeanalyzer.model.AnalysisStatus;
+import com.example.resumeanalyzer.model.AnalysisSummary;
 import com.example.resumeanalyzer.model.ResumeAnalysis;
 import com.example.resumeanalyzer.model.User;
 import com.example.resumeanalyzer.repository.AnalysisRepository;
 import com.example.resumeanalyzer.repository.UserRepository;
+import com.example.resumeanalyzer.security.JwtPrincipal;
+import com.example.resumeanalyzer.service.AnalysisService;
 import com.example.resumeanalyzer.service.MinioService;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,21 +28,24 @@ import java.util.Map;
 @RequestMapping("/api/profile")
 public class ProfileController {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
     private final AnalysisRepository analysisRepository;
     private final MinioService minioService;
+    private final AnalysisService analysisService;
 
     public ProfileController(UserRepository userRepository, AnalysisRepository analysisRepository,
-            MinioService minioService) {
+            MinioService minioService, AnalysisService analysisService) {
         this.userRepository = userRepository;
         this.analysisRepository = analysisRepository;
         this.minioService = minioService;
+        this.analysisService = analysisService;
     }
 
     @GetMapping("/user")
     public ResponseEntity<?> getUserProfile() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username)
+        User user = userRepository.findById(JwtPrincipal.current().id())
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found"));
 
         Map<String, Object> profile = new HashMap<>();
@@ -59,8 +70,7 @@ public class ProfileController {
 
     @PutMapping("/user")
     public ResponseEntity<?> updateUserProfile(@RequestBody Map<String, String> updateRequest) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username)
+        User user = userRepository.findById(JwtPrincipal.current().id())
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found"));
 
         // Update allowed fields
@@ -82,8 +92,7 @@ public class ProfileController {
 
     @PostMapping("/picture")
     public ResponseEntity<?> uploadProfilePicture(@RequestParam("file") MultipartFile file) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username)
+        User user = userRepository.findById(JwtPrincipal.current().id())
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found"));
 
         try {
@@ -94,7 +103,7 @@ public class ProfileController {
             }
 
             // Upload to MinIO
-            String fileName = minioService.uploadFile(file);
+            String fileName = minioService.uploadFile(file).objectName();
             user.setProfilePicture(fileName);
             userRepository.save(user);
 
@@ -109,22 +118,87 @@ public class ProfileController {
         }
     }
 
+    /**
+     * One page of the user's history, newest first. Pass the returned
+     * {@code nextCursor} back as {@code cursor} to fetch the following page;
+     * it is {@code null} on the last page.
+     */
     @GetMapping("/history")
-    public ResponseEntity<List<ResumeAnalysis>> getHistory() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User Not Found"));
+    public ResponseEntity<?> getHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        Long userId = JwtPrincipal.current().id();
+
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        // Fetch one extra row to learn whether another page follows
+        Limit limit = Limit.of(pageSize + 1);
+        List<AnalysisSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = analysisRepository.findHistoryFirstPage(userId, limit);
+        } else {
+            String[] position;
+            try {
+                position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+                rows = analysisRepository.findHistoryPageAfter(userId, LocalDateTime.parse(position[0]),
+                        Long.parseLong(position[1]), limit);
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+            }
+        }
 
-        List<ResumeAnalysis> history = analysisRepository.findByUserIdOrderByCreatedAtDesc(user.getId());
+        boolean hasMore = rows.size() > pageSize;
+        List<AnalysisSummary> page = hasMore ? rows.subList(0, pageSize) : rows;
 
-        // Enhance history with presigned URLs
-        history.forEach(analysis -> {
-            if (analysis.getFileUrl() != null) {
-                analysis.setFileUrl(minioService.getFileUrl(analysis.getFileUrl()));
-            }
-        });
+        Map<String, Object> response = new HashMap<>();
+        response.put("items", page.stream().map(this::mapHistorySummary).toList());
+        response.put("nextCursor", hasMore ? encodeCursor(page.get(page.size() - 1)) : null);
+        if (cursor == null || cursor.isBlank()) {
+            response.put("totalItems", analysisRepository.countByUserId(userId));
+        }
+        return ResponseEntity.ok(response);
+    }
 
-        return ResponseEntity.ok(history);
+    @GetMapping("/history/{id}")
+    public ResponseEntity<?> getHistoryEntry(@PathVariable Long id) {
+        return analysisRepository.findByIdAndUserId(id, JwtPrincipal.current().id())
+                .map(analysis -> ResponseEntity.ok(mapHistoryDetail(analysis)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private Map<String, Object> mapHistorySummary(AnalysisSummary summary) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", summary.id());
+        map.put("jobTitle", summary.jobTitle());
+        map.put("suitabilityScore", summary.suitabilityScore());
+        map.put("status", summary.status().name());
+        map.put("createdAt", summary.createdAt());
+        map.put("fileUrl", summary.fileUrl() != null ? minioService.getFileUrl(summary.fileUrl()) : null);
+        return map;
     }
-}
 
+    private Map<String, Object> mapHistoryDetail(ResumeAnalysis analysis) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", analysis.getId());
+        map.put("jobTitle", analysis.getJobTitle());
+        // Resumes of a bulk analysis share the job description stored on their batch
+        map.put("jobDescription", analysis.getJobDescription() == null && analysis.getBatch() != null
+                ? analysis.getBatch().getJobDescription()
+                : analysis.getJobDescription());
+        map.put("suitabilityScore", analysis.getSuitabilityScore());
+        map.put("status", analysis.getStatus().name());
+        map.put("createdAt", analysis.getCreatedAt());
+        AnalysisResult result = analysisService.resultOf(analysis);
+        map.put("summary", result.summary());
+        map.put("matchedSkills", result.matchedSkills());
+        map.put("missingSkills", result.missingSkills());
+        map.put("recommendation", String.join("\n\n", result.recommendations()));
+        map.put("result", analysis.getStatus() == AnalysisStatus.COMPLETED ? analysisService.toResultMap(analysis) : null);
+        map.put("fileUrl", analysis.getFileUrl() != null ? minioService.getFileUrl(analysis.getFileUrl()) : null);
+        return map;
+    }
+
+    private static String encodeCursor(AnalysisSummary last) {
+        String position = last.createdAt() + "|" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,14 +1,24 @@
 package com.example.resumeanalyzer.controller;
 
+import com.example.resumeanalyzer.model.AnalysisStatus;
+import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.example.resumeanalyzer.security.JwtPrincipal;
+import com.example.resumeanalyzer.service.AnalysisAdmissionService;
+import com.example.resumeanalyzer.service.AnalysisPipelineMetrics;
 import com.example.resumeanalyzer.service.AnalysisService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Main Spring Boot Application Entry Point and REST Controller.
@@ -18,16 +28,25 @@ import java.util.Map;
 @CrossOrigin(origins = "*", maxAge = 3600) // Allow all origins for dev
 public class ResumeController {
 
+    // Upper bound for a single long-poll so proxies between the browser and us don't cut it off
+    private static final long MAX_WAIT_SECONDS = 30;
+
     @Autowired
     private AnalysisService analysisService;
 
+    @Autowired
+    private AnalysisAdmissionService admissionService;
+
+    @Autowired
+    private AnalysisPipelineMetrics pipelineMetrics;
+
     /**
-     * Endpoint to upload a resume, provide a job description, and get an AI
-     * analysis.
+     * Endpoint to upload a resume and a job description and queue an AI analysis.
      * 
      * @param resumeFile     The uploaded file.
      * @param jobDescription The text of the job description.
-     * @return A JSON string containing the AI's suitability analysis.
+     * @return 202 Accepted with the analysis id and the URL to poll for its status,
+     *         or 429 with Retry-After when the user or the service is over its limit.
      */
     @PostMapping("/analyze")
     public ResponseEntity<?> analyzeResume(
@@ -38,16 +57,75 @@ public class ResumeController {
             return ResponseEntity.badRequest().body(Map.of("error", "Resume file and job description are required."));
         }
 
+        AnalysisAdmissionService.Decision decision = admissionService.tryAdmit(JwtPrincipal.current().id());
+        if (!decision.admitted()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()))
+                    .body(Map.of("error", decision.reason(), "retryAfterSeconds", decision.retryAfterSeconds()));
+        }
+
+        boolean tracked = false;
         try {
-            // Service handles MinIO upload, DB save, and Gemini API call
-            Map<String, Object> result = analysisService.analyzeResume(resumeFile, jobDescription);
+            // Service handles MinIO upload, DB save and publishing to the NLP service
+            ResumeAnalysis analysis = analysisService.submitAnalysis(resumeFile, jobDescription);
+            if (analysis.getStatus() == AnalysisStatus.PENDING) {
+                admissionService.track(analysis.getId());
+                tracked = true;
+            }
 
-            return ResponseEntity.ok(result);
+            String statusUrl = "/api/analyses/" + analysis.getId() + "/status";
+            Map<String, Object> response = analysisService.toStatusResponse(analysis);
+            response.put("statusUrl", statusUrl);
+            return ResponseEntity.accepted().location(URI.create(statusUrl)).body(response);
 
         } catch (IOException e) {
             System.err.println("Error during file processing or API call: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Internal server error: " + e.getMessage()));
+        } finally {
+            // Answered from the result cache, or never queued
+            if (!tracked) {
+                admissionService.release();
+            }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the status of an analysis. With {@code wait > 0} the request is held
+     * open (without occupying a servlet thread) until the analysis finishes or the
+     * wait elapses, whichever comes first.
+     *
+     * @param id   The analysis id returned by {@code POST /api/analyze}.
+     * @param wait Seconds to long-poll for completion, capped at 30.
+     */
+    @GetMapping("/analyses/{id}/status")
+    public DeferredResult<ResponseEntity<?>> getAnalysisStatus(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") long wait) {
+        Long userId = JwtPrincipal.current().id();
+        long waitSeconds = Math.max(0, Math.min(wait, MAX_WAIT_SECONDS));
+
+        // Register before reading so a result persisted in between can't be missed
+        CompletableFuture<ResumeAnalysis> completion = waitSeconds > 0 ? analysisService.awaitCompletion(id) : null;
+        Optional<ResumeAnalysis> current = analysisService.findOwnedAnalysis(id, userId);
+
+        DeferredResult<ResponseEntity<?>> deferred;
+        if (current.isEmpty() || current.get().getStatus() != AnalysisStatus.PENDING || completion == null) {
+            if (completion != null) {
+                analysisService.stopWaiting(id, completion);
+            }
+            deferred = new DeferredResult<>();
+            deferred.setResult(current
+                    .<ResponseEntity<?>>map(analysis -> ResponseEntity.ok(analysisService.toStatusResponse(analysis)))
+                    .orElse(ResponseEntity.notFound().build()));
+            return deferred;
+        }
+
+        deferred = new DeferredResult<>(waitSeconds * 1000,
+                ResponseEntity.ok(analysisService.toStatusResponse(current.get())));
+        deferred.onTimeout(pipelineMetrics::statusWaitTimedOut);
+        deferred.onCompletion(() -> analysisService.stopWaiting(id, completion));
+        completion.thenAccept(analysis -> deferred.setResult(ResponseEntity.ok(analysisService.toStatusResponse(analysis))));
+        return deferred;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.resumeanalyzer.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Analysis row for the admin list, joined with its owner in the same query.
+ */
+public record AdminAnalysisSummary(Long id, String jobTitle, Integer suitabilityScore, LocalDateTime createdAt,
+        Long userId, String username) {
+}
@@ -0,0 +1,8 @@
+package com.example.resumeanalyzer.model;
+
+/**
+ * User row for the admin list, with the analysis count aggregated in the same query.
+ */
+public record AdminUserSummary(Long id, String username, String email, String fullName, Role role,
+        long analysisCount) {
+}
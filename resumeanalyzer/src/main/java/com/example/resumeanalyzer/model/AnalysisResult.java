@@ -0,0 +1,39 @@
+package com.example.resumeanalyzer.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The full result returned by the NLP service. Bound once from the reply and
+ * stored as a JSON column on {@link ResumeAnalysis}, using the NLP service's
+ * field names so the stored document matches what the frontend renders.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record AnalysisResult(
+        @JsonProperty("compatibility_score") Integer compatibilityScore,
+        @JsonProperty("is_suitable") Boolean suitable,
+        @JsonProperty("summary") String summary,
+        @JsonProperty("experience_level") String experienceLevel,
+        @JsonProperty("matched_skills") @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY) List<String> matchedSkills,
+        @JsonProperty("missing_skills") @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY) List<String> missingSkills,
+        @JsonProperty("strengths") @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY) List<String> strengths,
+        @JsonProperty("recommendations") @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY) List<String> recommendations,
+        @JsonProperty("ats_keywords") @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY) List<String> atsKeywords,
+        @JsonProperty("interview_tips") String interviewTips) {
+
+    public AnalysisResult {
+        matchedSkills = cleaned(matchedSkills);
+        missingSkills = cleaned(missingSkills);
+        strengths = cleaned(strengths);
+        recommendations = cleaned(recommendations);
+        atsKeywords = cleaned(atsKeywords);
+    }
+
+    private static List<String> cleaned(List<String> values) {
+        return values == null ? List.of() : values.stream().filter(Objects::nonNull).toList();
+    }
+}
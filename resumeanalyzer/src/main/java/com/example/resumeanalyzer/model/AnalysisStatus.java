@@ -0,0 +1,17 @@
+package com.example.resumeanalyzer.model;
+
+public enum AnalysisStatus {
+    PENDING,
+    COMPLETED,
+    FAILED;
+
+    /**
+     * Rows written before the status column existed only tracked progress via the job title.
+     */
+    public static AnalysisStatus resolve(AnalysisStatus stored, String jobTitle) {
+        if (stored != null) {
+            return stored;
+        }
+        return "Pending Analysis".equals(jobTitle) ? PENDING : COMPLETED;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.resumeanalyzer.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight history row: only the columns the history list shows, none of the
+ * TEXT result columns.
+ */
+public record AnalysisSummary(Long id, String jobTitle, Integer suitabilityScore, AnalysisStatus status,
+        String fileUrl, LocalDateTime createdAt) {
+
+    public AnalysisSummary {
+        status = AnalysisStatus.resolve(status, jobTitle);
+    }
+}
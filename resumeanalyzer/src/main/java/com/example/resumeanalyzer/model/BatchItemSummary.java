@@ -0,0 +1,13 @@
+package com.example.resumeanalyzer.model;
+
+/**
+ * One resume of a bulk analysis, as listed in batch progress and ranking.
+ */
+public record BatchItemSummary(Long id, String fileName, String jobTitle, AnalysisStatus status,
+        Integer suitabilityScore) {
+
+    public static BatchItemSummary of(ResumeAnalysis analysis) {
+        return new BatchItemSummary(analysis.getId(), analysis.getFileName(), analysis.getJobTitle(),
+                analysis.getStatus(), analysis.getSuitabilityScore());
+    }
+}
@@ -2,16 +2,29 @@ package com.example.resumeanalyzer.model;
 
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "analysis_history")
+@Table(name = "analysis_history", indexes = {
+        @Index(name = "idx_analysis_content_hash", columnList = "contentHash, status"),
+        @Index(name = "idx_analysis_user_created", columnList = "user_id, createdAt DESC, id DESC"),
+        @Index(name = "idx_analysis_batch", columnList = "batch_id"),
+        @Index(name = "idx_analysis_next_attempt", columnList = "status, nextAttemptAt")
+})
 public class ResumeAnalysis {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Bumped on every entity update, so concurrent writers of a result can't overwrite each other.
+    // The default fills the column for rows stored before it existed.
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonBackReference
@@ -26,9 +39,40 @@ public class ResumeAnalysis {
 
     private String fileUrl; // MinIO URL
 
+    private String fileName; // Name of the uploaded file, as the user knows it
+
+    // Set for analyses submitted as part of a bulk upload; the job description is then stored on the batch
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "batch_id")
+    private AnalysisBatch batch;
+
+    @Column(length = 64)
+    private String contentHash; // SHA-256 of resume bytes + normalized job description
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private AnalysisStatus status = AnalysisStatus.PENDING;
+
     @Column(updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    private Integer attempts; // Times the request has been published to the NLP service
+
+    // While pending: when the request is presumed lost and re-published by AnalysisReaper
+    private LocalDateTime nextAttemptAt;
+
+    // Keyword match shown while the NLP result is pending; cleared when the result arrives
+    private Integer provisionalScore;
+
+    @Column(columnDefinition = "TEXT")
+    private String provisionalTerms; // Comma-separated skills named by both the resume and the job description
+
+    // Full NLP result; jsonb on PostgreSQL
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "analysis_result")
+    private AnalysisResult result;
+
+    // The TEXT columns below are only filled for analyses stored before the result column existed
     @Column(columnDefinition = "TEXT")
     private String summary;
 
@@ -41,6 +85,14 @@ public class ResumeAnalysis {
     @Column(columnDefinition = "TEXT")
     private String recommendation;
 
+    public AnalysisResult getResult() {
+        return result;
+    }
+
+    public void setResult(AnalysisResult result) {
+        this.result = result;
+    }
+
     public String getSummary() {
         return summary;
     }
@@ -84,6 +136,10 @@ public class ResumeAnalysis {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public User getUser() {
         return user;
     }
@@ -124,6 +180,70 @@ public class ResumeAnalysis {
         this.fileUrl = fileUrl;
     }
 
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public AnalysisBatch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(AnalysisBatch batch) {
+        this.batch = batch;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public AnalysisStatus getStatus() {
+        return AnalysisStatus.resolve(status, jobTitle);
+    }
+
+    public void setStatus(AnalysisStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts != null ? attempts : 0;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Integer getProvisionalScore() {
+        return provisionalScore;
+    }
+
+    public void setProvisionalScore(Integer provisionalScore) {
+        this.provisionalScore = provisionalScore;
+    }
+
+    public String getProvisionalTerms() {
+        return provisionalTerms;
+    }
+
+    public void setProvisionalTerms(String provisionalTerms) {
+        this.provisionalTerms = provisionalTerms;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -2,6 +2,7 @@ package com.example.resumeanalyzer.model;
 
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,6 +31,9 @@ public class User {
     @Column(nullable = false)
     private Role role = Role.USER;
 
+    // Tokens issued before this instant are rejected (set on role change)
+    private Instant tokensValidAfter;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     private List<ResumeAnalysis> analysisHistory = new ArrayList<>();
@@ -107,5 +111,12 @@ public class User {
     public void setRole(Role role) {
         this.role = role;
     }
-}
 
+    public Instant getTokensValidAfter() {
+        return tokensValidAfter;
+    }
+
+    public void setTokensValidAfter(Instant tokensValidAfter) {
+        this.tokensValidAfter = tokensValidAfter;
+    }
+}
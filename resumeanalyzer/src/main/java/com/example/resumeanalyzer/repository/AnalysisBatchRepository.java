@@ -0,0 +1,11 @@
+package com.example.resumeanalyzer.repository;
+
+import com.example.resumeanalyzer.model.AnalysisBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface AnalysisBatchRepository extends JpaRepository<AnalysisBatch, Long> {
+
+    Optional<AnalysisBatch> findByIdAndUserId(Long id, Long userId);
+}
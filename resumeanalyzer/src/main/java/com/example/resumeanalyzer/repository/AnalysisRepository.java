@@ -1,9 +1,118 @@
 package com.example.resumeanalyzer.repository;
 
+import com.example.resumeanalyzer.model.AdminAnalysisSummary;
+import com.example.resumeanalyzer.model.AnalysisStatus;
+import com.example.resumeanalyzer.model.AnalysisSummary;
+import com.example.resumeanalyzer.model.BatchItemSummary;
 import com.example.resumeanalyzer.model.ResumeAnalysis;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface AnalysisRepository extends JpaRepository<ResumeAnalysis, Long> {
-    List<ResumeAnalysis> findByUserIdOrderByCreatedAtDesc(Long userId);
+    // Keyset pagination over (created_at, id), served by idx_analysis_user_created
+    @Query("select new com.example.resumeanalyzer.model.AnalysisSummary(a.id, a.jobTitle, a.suitabilityScore, "
+            + "a.status, a.fileUrl, a.createdAt) from ResumeAnalysis a where a.user.id = :userId "
+            + "order by a.createdAt desc, a.id desc")
+    List<AnalysisSummary> findHistoryFirstPage(@Param("userId") Long userId, Limit limit);
+
+    @Query("select new com.example.resumeanalyzer.model.AnalysisSummary(a.id, a.jobTitle, a.suitabilityScore, "
+            + "a.status, a.fileUrl, a.createdAt) from ResumeAnalysis a where a.user.id = :userId "
+            + "and (a.createdAt < :createdAt or (a.createdAt = :createdAt and a.id < :id)) "
+            + "order by a.createdAt desc, a.id desc")
+    List<AnalysisSummary> findHistoryPageAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id, Limit limit);
+
+    long countByUserId(Long userId);
+
+    // Rows without a status predate the column; the pending title is returned for AnalysisStatus.resolve
+    @Query("select a.status, case when a.jobTitle = 'Pending Analysis' then a.jobTitle end, count(a) "
+            + "from ResumeAnalysis a "
+            + "group by a.status, case when a.jobTitle = 'Pending Analysis' then a.jobTitle end")
+    List<Object[]> countGroupedByStatus();
+
+    @Query("select a.suitabilityScore / 10, count(a) from ResumeAnalysis a "
+            + "where a.status = com.example.resumeanalyzer.model.AnalysisStatus.COMPLETED "
+            + "or (a.status is null and coalesce(a.jobTitle, '') <> 'Pending Analysis') "
+            + "group by a.suitabilityScore / 10")
+    List<Object[]> countCompletedGroupedByScoreDecile();
+
+    // The owner is joined in the same query instead of lazily loaded per row
+    @Query(value = "select new com.example.resumeanalyzer.model.AdminAnalysisSummary(a.id, a.jobTitle, "
+            + "a.suitabilityScore, a.createdAt, u.id, u.username) from ResumeAnalysis a join a.user u",
+            countQuery = "select count(a) from ResumeAnalysis a")
+    Page<AdminAnalysisSummary> findAdminSummaries(Pageable pageable);
+
+    @Query("select new com.example.resumeanalyzer.model.AdminAnalysisSummary(a.id, a.jobTitle, "
+            + "a.suitabilityScore, a.createdAt, u.id, u.username) from ResumeAnalysis a join a.user u where a.id = :id")
+    Optional<AdminAnalysisSummary> findAdminSummaryById(@Param("id") Long id);
+
+    Optional<ResumeAnalysis> findByIdAndUserId(Long id, Long userId);
+
+    Optional<ResumeAnalysis> findFirstByContentHashAndStatusOrderByCreatedAtDesc(String contentHash,
+            AnalysisStatus status);
+
+    List<ResumeAnalysis> findByContentHashAndStatus(String contentHash, AnalysisStatus status);
+
+    // Best scores first; unfinished items carry no meaningful score yet and go last
+    @Query("select new com.example.resumeanalyzer.model.BatchItemSummary(a.id, a.fileName, a.jobTitle, "
+            + "a.status, a.suitabilityScore) from ResumeAnalysis a where a.batch.id = :batchId order by "
+            + "case when a.status = com.example.resumeanalyzer.model.AnalysisStatus.COMPLETED then 0 else 1 end, "
+            + "a.suitabilityScore desc, a.id")
+    List<BatchItemSummary> findBatchItemsRanked(@Param("batchId") Long batchId);
+
+    List<ResumeAnalysis> findByBatchIdAndStatus(Long batchId, AnalysisStatus status);
+
+    // Pending analyses past their deadline, oldest first, served by idx_analysis_next_attempt
+    @Query("select a from ResumeAnalysis a left join fetch a.batch "
+            + "where a.status = com.example.resumeanalyzer.model.AnalysisStatus.PENDING and a.nextAttemptAt < :now "
+            + "order by a.nextAttemptAt")
+    List<ResumeAnalysis> findOverdue(@Param("now") LocalDateTime now, Limit limit);
+
+    // Only succeeds while the deadline is still the one the caller read, so each overdue
+    // attempt is handled by one instance
+    @Transactional
+    @Modifying
+    @Query("update ResumeAnalysis a set a.attempts = :attempts, a.nextAttemptAt = :next where a.id = :id "
+            + "and a.status = com.example.resumeanalyzer.model.AnalysisStatus.PENDING and a.nextAttemptAt = :current")
+    int rescheduleAttempt(@Param("id") Long id, @Param("current") LocalDateTime current,
+            @Param("attempts") int attempts, @Param("next") LocalDateTime next);
+
+    // Rows written before the status column existed and still at the title given on submission:
+    // recent ones are handed to the reaper to publish again, older ones are given up on
+    @Transactional
+    @Modifying
+    @Query("update ResumeAnalysis a set a.status = com.example.resumeanalyzer.model.AnalysisStatus.PENDING, "
+            + "a.attempts = 1, a.nextAttemptAt = :now "
+            + "where a.status is null and a.jobTitle = 'Pending Analysis' and a.createdAt >= :cutoff")
+    int adoptLegacyPending(@Param("now") LocalDateTime now, @Param("cutoff") LocalDateTime cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("update ResumeAnalysis a set a.status = com.example.resumeanalyzer.model.AnalysisStatus.FAILED, "
+            + "a.jobTitle = 'Analysis Timed Out' "
+            + "where a.status is null and a.jobTitle = 'Pending Analysis' "
+            + "and (a.createdAt < :cutoff or a.createdAt is null)")
+    int failLegacyPending(@Param("cutoff") LocalDateTime cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("update ResumeAnalysis a set a.nextAttemptAt = :next where a.id = :id "
+            + "and a.status = com.example.resumeanalyzer.model.AnalysisStatus.PENDING")
+    int updateNextAttemptAt(@Param("id") Long id, @Param("next") LocalDateTime next);
+
+    @Transactional
+    @Modifying
+    @Query("update ResumeAnalysis a set a.provisionalScore = :score, a.provisionalTerms = :terms where a.id = :id "
+            + "and a.status = com.example.resumeanalyzer.model.AnalysisStatus.PENDING")
+    int updateProvisionalScore(@Param("id") Long id, @Param("score") Integer score, @Param("terms") String terms);
 }
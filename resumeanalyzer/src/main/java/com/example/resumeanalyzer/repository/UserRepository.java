@@ -1,7 +1,15 @@
 package com.example.resumeanalyzer.repository;
 
+import com.example.resumeanalyzer.model.AdminUserSummary;
 import com.example.resumeanalyzer.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -10,5 +18,19 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByUsername(String username);
 
     Boolean existsByEmail(String email);
+
+    List<User> findByTokensValidAfterAfter(Instant instant);
+
+    // Analysis counts are grouped in SQL instead of initializing each user's analysisHistory
+    @Query(value = "select new com.example.resumeanalyzer.model.AdminUserSummary(u.id, u.username, u.email, "
+            + "u.fullName, u.role, count(a.id)) from User u left join u.analysisHistory a "
+            + "group by u.id, u.username, u.email, u.fullName, u.role",
+            countQuery = "select count(u) from User u")
+    Page<AdminUserSummary> findUserSummaries(Pageable pageable);
+
+    @Query("select new com.example.resumeanalyzer.model.AdminUserSummary(u.id, u.username, u.email, "
+            + "u.fullName, u.role, count(a.id)) from User u left join u.analysisHistory a where u.id = :id "
+            + "group by u.id, u.username, u.email, u.fullName, u.role")
+    Optional<AdminUserSummary> findUserSummaryById(@Param("id") Long id);
 }
 
@@ -0,0 +1,25 @@
+package com.example.resumeanalyzer.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Login-time user details that also carry the user id, so the issued token can
+ * include it without another lookup.
+ */
+public class AccountDetails extends User {
+
+    private final Long id;
+
+    public AccountDetails(Long id, String username, String password,
+            Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.resumeanalyzer.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.security.Principal;
+
+/**
+ * The authenticated caller, built entirely from the signed claims of their JWT.
+ * {@link #getName()} is the username, so {@code Authentication.getName()} keeps
+ * working as before.
+ */
+public record JwtPrincipal(Long id, String username, String role) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public static JwtPrincipal current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal;
+        }
+        throw new IllegalStateException("No JWT-authenticated user in the security context");
+    }
+}
@@ -3,10 +3,10 @@ package com.example.resumeanalyzer.security;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
@@ -15,13 +15,26 @@ import java.util.Date;
 @Component
 public class JwtUtils {
 
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     private int jwtExpirationMs = 86400000; // 24 hours
 
+    // Decoding the secret and building the HMAC key is not free; do it once
+    private Key signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
     public String generateJwtToken(Authentication authentication) {
-        UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
+        AccountDetails userPrincipal = (AccountDetails) authentication.getPrincipal();
         
         // Extract role from authorities
         String role = userPrincipal.getAuthorities().stream()
@@ -33,31 +46,25 @@ public class JwtUtils {
 
         return Jwts.builder()
                 .setSubject((userPrincipal.getUsername()))
-                .claim("role", role)
+                .claim(USER_ID_CLAIM, userPrincipal.getId())
+                .claim(ROLE_CLAIM, role)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
-    }
-
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
-    }
-
-    public String getRoleFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().get("role", String.class);
+    public long getJwtExpirationMs() {
+        return jwtExpirationMs;
     }
 
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Verifies the token and returns its claims, or {@code null} if it is invalid.
+     * This is the only parse on the request path.
+     */
+    public Claims parseJwtToken(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(authToken);
-            return true;
+            return parser.parseClaimsJws(authToken).getBody();
         } catch (MalformedJwtException e) {
             System.err.println("Invalid JWT token: " + e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -70,6 +77,6 @@ public class JwtUtils {
             System.err.println("JWT validation error: " + e.getMessage());
         }
 
-        return false;
+        return null;
     }
 }
@@ -0,0 +1,119 @@
+package com.example.resumeanalyzer.security;
+
+import com.example.resumeanalyzer.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Invalidates already-issued tokens when a user's role changes or the user is
+ * deleted, without a database lookup per request.
+ *
+ * For each affected user we remember the instant before which their tokens are no
+ * longer accepted. The cut-off is persisted on the user row by the caller, held in
+ * memory here, reloaded at startup and broadcast to the other instances once the
+ * caller's transaction commits. Entries are dropped once every token they could
+ * reject has expired anyway.
+ */
+@Service
+public class TokenRevocationService {
+
+    private final Map<Long, Long> validAfterEpochSeconds = new ConcurrentHashMap<>();
+
+    private final UserRepository userRepository;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final JwtUtils jwtUtils;
+
+    @Value("${kafka.topic.auth-events:resume-auth-events}")
+    private String authEventsTopic;
+
+    public TokenRevocationService(UserRepository userRepository, KafkaTemplate<String, String> kafkaTemplate,
+            ObjectMapper objectMapper, JwtUtils jwtUtils) {
+        this.userRepository = userRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.jwtUtils = jwtUtils;
+    }
+
+    // Token issue times are whole seconds, so a token from the cut-off's own second may predate it
+    // and is rejected too; at worst a user who logs in again within that second must do so once more
+    public boolean isRevoked(Long userId, Date issuedAt) {
+        Long validAfter = validAfterEpochSeconds.get(userId);
+        return validAfter != null && (issuedAt == null || issuedAt.toInstant().getEpochSecond() <= validAfter);
+    }
+
+    /**
+     * Rejects every token of the user issued before {@code cutoff}, on all instances.
+     * Takes effect here at once; inside a transaction the other instances are told only
+     * after it commits, so a rolled-back change is never broadcast.
+     */
+    public void revokeTokensIssuedBefore(Long userId, Instant cutoff) {
+        remember(userId, cutoff.getEpochSecond());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    broadcast(userId, cutoff);
+                }
+            });
+        } else {
+            broadcast(userId, cutoff);
+        }
+    }
+
+    private void broadcast(Long userId, Instant cutoff) {
+        try {
+            Map<String, Object> event = new HashMap<>();
+            event.put("user_id", userId);
+            event.put("valid_after", cutoff.getEpochSecond());
+            kafkaTemplate.send(authEventsTopic, String.valueOf(userId), objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            // Other instances pick the cut-off up from the database on their next restart
+            System.err.println("Failed to broadcast token revocation for user " + userId + ": " + e.getMessage());
+        }
+    }
+
+    @KafkaListener(topics = "${kafka.topic.auth-events:resume-auth-events}",
+            containerFactory = "broadcastListenerContainerFactory")
+    public void onRevocation(String message) {
+        try {
+            JsonNode event = objectMapper.readTree(message);
+            remember(event.get("user_id").asLong(), event.get("valid_after").asLong());
+        } catch (Exception e) {
+            System.err.println("Ignoring malformed auth event: " + e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRecentRevocations() {
+        Instant horizon = Instant.now().minusMillis(jwtUtils.getJwtExpirationMs());
+        userRepository.findByTokensValidAfterAfter(horizon)
+                .forEach(user -> remember(user.getId(), user.getTokensValidAfter().getEpochSecond()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.revocation-prune-interval-ms:600000}")
+    public void pruneExpired() {
+        long horizon = Instant.now().minusMillis(jwtUtils.getJwtExpirationMs()).getEpochSecond();
+        validAfterEpochSeconds.values().removeIf(validAfter -> validAfter < horizon);
+    }
+
+    private void remember(Long userId, long validAfter) {
+        validAfterEpochSeconds.merge(userId, validAfter, Math::max);
+    }
+}
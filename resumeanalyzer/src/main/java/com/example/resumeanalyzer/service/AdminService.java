@@ -1,17 +1,19 @@
 package com.example.resumeanalyzer.service;
 
-import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.example.resumeanalyzer.model.AdminAnalysisSummary;
+import com.example.resumeanalyzer.model.AdminUserSummary;
 import com.example.resumeanalyzer.model.Role;
 import com.example.resumeanalyzer.model.User;
 import com.example.resumeanalyzer.repository.AnalysisRepository;
 import com.example.resumeanalyzer.repository.UserRepository;
+import com.example.resumeanalyzer.security.TokenRevocationService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
+import java.time.Instant;
 import java.util.Map;
 import java.util.Optional;
 
@@ -20,26 +22,37 @@ public class AdminService {
 
     private final UserRepository userRepository;
     private final AnalysisRepository analysisRepository;
+    private final AdminStatsTracker statsTracker;
+    private final TokenRevocationService tokenRevocationService;
 
-    public AdminService(UserRepository userRepository, AnalysisRepository analysisRepository) {
+    public AdminService(UserRepository userRepository, AnalysisRepository analysisRepository,
+            AdminStatsTracker statsTracker, TokenRevocationService tokenRevocationService) {
         this.userRepository = userRepository;
         this.analysisRepository = analysisRepository;
+        this.statsTracker = statsTracker;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
-    public Page<User> getAllUsers(int page, int size) {
-        return userRepository.findAll(PageRequest.of(page, size, Sort.by("id").descending()));
+    public Page<AdminUserSummary> getAllUsers(int page, int size) {
+        return userRepository.findUserSummaries(PageRequest.of(page, size, Sort.by("id").descending()));
     }
 
-    public Optional<User> getUserById(Long id) {
-        return userRepository.findById(id);
+    public Optional<AdminUserSummary> getUserById(Long id) {
+        return userRepository.findUserSummaryById(id);
     }
 
     @Transactional
-    public User updateUserRole(Long id, Role role) {
+    public AdminUserSummary updateUserRole(Long id, Role role) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
         user.setRole(role);
-        return userRepository.save(user);
+        // Tokens still carry the old role; make the user log in again
+        Instant cutoff = Instant.now();
+        user.setTokensValidAfter(cutoff);
+        userRepository.save(user);
+        tokenRevocationService.revokeTokensIssuedBefore(id, cutoff);
+        return userRepository.findUserSummaryById(id)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
     }
 
     @Transactional
@@ -48,14 +61,15 @@ public class AdminService {
             throw new RuntimeException("User not found with id: " + id);
         }
         userRepository.deleteById(id);
+        tokenRevocationService.revokeTokensIssuedBefore(id, Instant.now());
     }
 
-    public Page<ResumeAnalysis> getAllAnalyses(int page, int size) {
-        return analysisRepository.findAll(PageRequest.of(page, size, Sort.by("createdAt").descending()));
+    public Page<AdminAnalysisSummary> getAllAnalyses(int page, int size) {
+        return analysisRepository.findAdminSummaries(PageRequest.of(page, size, Sort.by("createdAt").descending()));
     }
 
-    public Optional<ResumeAnalysis> getAnalysisById(Long id) {
-        return analysisRepository.findById(id);
+    public Optional<AdminAnalysisSummary> getAnalysisById(Long id) {
+        return analysisRepository.findAdminSummaryById(id);
     }
 
     @Transactional
@@ -67,9 +81,10 @@ public class AdminService {
     }
 
     public Map<String, Object> getStats() {
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalUsers", userRepository.count());
-        stats.put("totalAnalyses", analysisRepository.count());
-        return stats;
+        return statsTracker.getTotals();
+    }
+
+    public Map<String, Object> getStatsTimeSeries(String resolution) {
+        return statsTracker.getTimeSeries(resolution);
     }
 }
@@ -0,0 +1,184 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.model.AnalysisStatus;
+import com.example.resumeanalyzer.repository.AnalysisRepository;
+import com.example.resumeanalyzer.repository.UserRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Admin dashboard statistics, maintained incrementally as users register and
+ * analyses are submitted and completed, so that reading them costs nothing.
+ *
+ * Counters are per instance; {@link #reconcile()} periodically resets the totals
+ * and the score histogram from the database, which corrects drift from deletes,
+ * from events handled by other replicas and from restarts. The time series only
+ * cover activity seen by this instance since it started.
+ */
+@Service
+public class AdminStatsTracker {
+
+    private static final int SCORE_BUCKETS = 10;
+
+    private final UserRepository userRepository;
+    private final AnalysisRepository analysisRepository;
+
+    private final AtomicLong totalUsers = new AtomicLong();
+    private final AtomicLong totalAnalyses = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLongArray scoreHistogram = new AtomicLongArray(SCORE_BUCKETS);
+
+    private final TimeSeries submittedPerMinute = new TimeSeries(60, 60);
+    private final TimeSeries completedPerMinute = new TimeSeries(60, 60);
+    private final TimeSeries submittedPerHour = new TimeSeries(3600, 48);
+    private final TimeSeries completedPerHour = new TimeSeries(3600, 48);
+
+    public AdminStatsTracker(UserRepository userRepository, AnalysisRepository analysisRepository) {
+        this.userRepository = userRepository;
+        this.analysisRepository = analysisRepository;
+    }
+
+    public void userRegistered() {
+        totalUsers.incrementAndGet();
+    }
+
+    public void analysisSubmitted() {
+        totalAnalyses.incrementAndGet();
+        pending.incrementAndGet();
+        long now = System.currentTimeMillis();
+        submittedPerMinute.increment(now);
+        submittedPerHour.increment(now);
+    }
+
+    public void analysisCompleted(Integer score) {
+        pending.decrementAndGet();
+        completed.incrementAndGet();
+        scoreHistogram.incrementAndGet(bucketOf(score));
+        long now = System.currentTimeMillis();
+        completedPerMinute.increment(now);
+        completedPerHour.increment(now);
+    }
+
+    public void analysisFailed() {
+        pending.decrementAndGet();
+        failed.incrementAndGet();
+    }
+
+    public Map<String, Object> getTotals() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalUsers", totalUsers.get());
+        stats.put("totalAnalyses", totalAnalyses.get());
+        stats.put("pendingAnalyses", Math.max(0, pending.get()));
+        stats.put("completedAnalyses", completed.get());
+        stats.put("failedAnalyses", failed.get());
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < SCORE_BUCKETS; i++) {
+            histogram.put(i * 10 + "-" + (i == SCORE_BUCKETS - 1 ? 100 : i * 10 + 9), scoreHistogram.get(i));
+        }
+        stats.put("scoreHistogram", histogram);
+        return stats;
+    }
+
+    public Map<String, Object> getTimeSeries(String resolution) {
+        boolean hourly = "hour".equalsIgnoreCase(resolution);
+        long now = System.currentTimeMillis();
+        Map<String, Object> series = new HashMap<>();
+        series.put("resolution", hourly ? "hour" : "minute");
+        series.put("submitted", (hourly ? submittedPerHour : submittedPerMinute).snapshot(now));
+        series.put("completed", (hourly ? completedPerHour : completedPerMinute).snapshot(now));
+        return series;
+    }
+
+    @Scheduled(initialDelayString = "${app.stats.reconcile-initial-delay-ms:10000}",
+            fixedDelayString = "${app.stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            totalUsers.set(userRepository.count());
+            totalAnalyses.set(analysisRepository.count());
+
+            long[] byStatus = new long[AnalysisStatus.values().length];
+            for (Object[] row : analysisRepository.countGroupedByStatus()) {
+                byStatus[AnalysisStatus.resolve((AnalysisStatus) row[0], (String) row[1]).ordinal()] += (Long) row[2];
+            }
+            pending.set(byStatus[AnalysisStatus.PENDING.ordinal()]);
+            completed.set(byStatus[AnalysisStatus.COMPLETED.ordinal()]);
+            failed.set(byStatus[AnalysisStatus.FAILED.ordinal()]);
+
+            long[] histogram = new long[SCORE_BUCKETS];
+            for (Object[] row : analysisRepository.countCompletedGroupedByScoreDecile()) {
+                histogram[bucketOf(row[0] == null ? null : ((Number) row[0]).intValue() * 10)] += (Long) row[1];
+            }
+            for (int i = 0; i < SCORE_BUCKETS; i++) {
+                scoreHistogram.set(i, histogram[i]);
+            }
+        } catch (Exception e) {
+            System.err.println("Admin stats reconciliation failed: " + e.getMessage());
+        }
+    }
+
+    private static int bucketOf(Integer score) {
+        if (score == null) {
+            return 0;
+        }
+        return Math.max(0, Math.min(SCORE_BUCKETS - 1, score / 10));
+    }
+
+    /**
+     * Fixed-size ring of counters, one per time bucket. A slot is lazily reset when
+     * the clock moves into a bucket that maps onto it again.
+     *
+     * Each slot packs its bucket id into the high 32 bits and its count into the low
+     * 32, so the reset and the first increment of a new bucket are one atomic update
+     * and a concurrent increment can't be wiped out by the reset.
+     */
+    static class TimeSeries {
+
+        private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+        private final long bucketMillis;
+        private final AtomicLongArray slots;
+
+        TimeSeries(long bucketSeconds, int buckets) {
+            this.bucketMillis = bucketSeconds * 1000;
+            this.slots = new AtomicLongArray(buckets);
+        }
+
+        void increment(long nowMillis) {
+            long bucket = nowMillis / bucketMillis;
+            int slot = (int) (bucket % slots.length());
+            slots.getAndUpdate(slot, packed -> {
+                long seen = packed >>> 32;
+                if (seen == bucket) {
+                    return packed + 1;
+                }
+                // A late increment for a bucket the slot has already moved past is out of the window
+                return seen > bucket ? packed : bucket << 32 | 1;
+            });
+        }
+
+        List<Map<String, Object>> snapshot(long nowMillis) {
+            long current = nowMillis / bucketMillis;
+            List<Map<String, Object>> points = new ArrayList<>(slots.length());
+            for (long bucket = current - slots.length() + 1; bucket <= current; bucket++) {
+                long packed = slots.get((int) (bucket % slots.length()));
+                Map<String, Object> point = new HashMap<>();
+                point.put("start", Instant.ofEpochMilli(bucket * bucketMillis).toString());
+                point.put("count", packed >>> 32 == bucket ? packed & COUNT_MASK : 0L);
+                points.add(point);
+            }
+            return points;
+        }
+    }
+}
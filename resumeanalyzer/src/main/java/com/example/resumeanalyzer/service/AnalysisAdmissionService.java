@@ -0,0 +1,222 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.util.LruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether a new analysis may be queued for the NLP service.
+ *
+ * Each user has a token bucket (refill rate plus burst), kept as a single
+ * theoretical-arrival-time value per user and updated with compare-and-set, so
+ * concurrent uploads never take a lock. On top of that the number of analyses
+ * this instance has in flight is capped at throughput x target latency (Little's
+ * law), with throughput measured from completion events, so the queue in front
+ * of the NLP service never holds more than it can work off within the target.
+ */
+@Service
+public class AnalysisAdmissionService {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long THROUGHPUT_SAMPLE_MILLIS = 5000;
+    private static final double THROUGHPUT_SMOOTHING = 0.3;
+    // Value of a bucket dropped from userBuckets, so a caller still holding it takes a fresh one
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    private final Map<Long, AtomicLong> userBuckets = new ConcurrentHashMap<>();
+    private final Map<Long, Long> admitted = new ConcurrentHashMap<>();
+    // Analyses that finished before they were tracked, e.g. a publish that failed straight away
+    private final LruCache<Long, Boolean> recentlyFinished = new LruCache<>(1000);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completionsSinceSample = new AtomicLong();
+    private volatile double completionsPerSecond;
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+
+    private final Counter admittedCounter;
+    private final Counter rejectedByUser;
+    private final Counter rejectedByCapacity;
+
+    @Value("${app.admission.target-latency-seconds:60}")
+    private double targetLatencySeconds;
+
+    @Value("${app.admission.min-in-flight:4}")
+    private int minInFlight;
+
+    @Value("${app.admission.max-in-flight:200}")
+    private int maxInFlight;
+
+    @Value("${app.admission.in-flight-ttl-seconds:600}")
+    private long inFlightTtlSeconds;
+
+    public AnalysisAdmissionService(MeterRegistry meterRegistry,
+            @Value("${app.admission.user.rate-per-minute:10}") double userRatePerMinute,
+            @Value("${app.admission.user.burst:5}") int userBurst) {
+        this.emissionIntervalNanos = (long) (60 * NANOS_PER_SECOND / userRatePerMinute);
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, userBurst - 1);
+
+        this.admittedCounter = Counter.builder("analysis.admission.admitted").register(meterRegistry);
+        this.rejectedByUser = Counter.builder("analysis.admission.rejected").tag("reason", "user-rate")
+                .register(meterRegistry);
+        this.rejectedByCapacity = Counter.builder("analysis.admission.rejected").tag("reason", "capacity")
+                .register(meterRegistry);
+        Gauge.builder("analysis.admission.in-flight", inFlight, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("analysis.admission.limit", this, AnalysisAdmissionService::inFlightLimit)
+                .register(meterRegistry);
+        Gauge.builder("analysis.admission.throughput", this, s -> s.completionsPerSecond).register(meterRegistry);
+    }
+
+    /**
+     * Outcome of an admission attempt. When rejected, {@code retryAfterSeconds} says when
+     * the same request is expected to be admitted.
+     */
+    public record Decision(boolean admitted, long retryAfterSeconds, String reason) {
+
+        static final Decision ADMITTED = new Decision(true, 0, null);
+    }
+
+    /**
+     * Takes a token from the user's bucket and a global in-flight slot. An admitted caller
+     * must follow up with {@link #track} once the analysis has an id, or {@link #release}
+     * if it fails before that.
+     */
+    public Decision tryAdmit(Long userId) {
+        long now = System.nanoTime();
+        long userWaitNanos = takeUserToken(userId, now);
+        if (userWaitNanos > 0) {
+            rejectedByUser.increment();
+            return new Decision(false, toRetrySeconds(userWaitNanos), "Too many analyses submitted, please slow down");
+        }
+
+        int limit = inFlightLimit();
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                // The user's token is not given back: retrying immediately would only be rejected again
+                rejectedByCapacity.increment();
+                double rate = completionsPerSecond;
+                long retry = rate > 0 ? (long) Math.ceil((current - limit + 1) / rate) : (long) targetLatencySeconds;
+                return new Decision(false, Math.max(1, retry), "The analysis service is at capacity, please retry later");
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+
+        admittedCounter.increment();
+        return Decision.ADMITTED;
+    }
+
+    /**
+     * Takes a token from the user's bucket only. Used for bulk submissions, which wait in
+     * the dispatcher's bulk queue rather than holding in-flight slots.
+     */
+    public Decision tryAdmitUser(Long userId) {
+        long userWaitNanos = takeUserToken(userId, System.nanoTime());
+        if (userWaitNanos > 0) {
+            rejectedByUser.increment();
+            return new Decision(false, toRetrySeconds(userWaitNanos), "Too many analyses submitted, please slow down");
+        }
+        admittedCounter.increment();
+        return Decision.ADMITTED;
+    }
+
+    /** Ties an admitted slot to the analysis so its completion frees the slot. */
+    public void track(Long analysisId) {
+        admitted.put(analysisId, System.currentTimeMillis());
+        if (recentlyFinished.get(analysisId) != null && admitted.remove(analysisId) != null) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /** Returns an admitted slot that never became a pending analysis. */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Called for every completed or failed analysis seen on this instance, local or
+     * broadcast by another node. Frees the slot if this instance admitted it.
+     */
+    public void finished(Long analysisId) {
+        completionsSinceSample.incrementAndGet();
+        recentlyFinished.put(analysisId, Boolean.TRUE);
+        if (admitted.remove(analysisId) != null) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    int inFlightLimit() {
+        long littlesLaw = (long) Math.ceil(completionsPerSecond * targetLatencySeconds);
+        return (int) Math.min(maxInFlight, Math.max(minInFlight, littlesLaw));
+    }
+
+    @Scheduled(fixedRate = THROUGHPUT_SAMPLE_MILLIS)
+    public void sampleThroughput() {
+        double rate = completionsSinceSample.getAndSet(0) * 1000.0 / THROUGHPUT_SAMPLE_MILLIS;
+        completionsPerSecond = THROUGHPUT_SMOOTHING * rate + (1 - THROUGHPUT_SMOOTHING) * completionsPerSecond;
+    }
+
+    // Slots of analyses whose completion was never seen (e.g. a lost notice) would otherwise leak
+    @Scheduled(fixedRate = 60000)
+    public void expireStaleAdmissions() {
+        long cutoff = System.currentTimeMillis() - inFlightTtlSeconds * 1000;
+        admitted.entrySet().removeIf(entry -> {
+            if (entry.getValue() < cutoff) {
+                inFlight.decrementAndGet();
+                return true;
+            }
+            return false;
+        });
+
+        pruneFullBuckets(System.nanoTime());
+    }
+
+    // Buckets that have fully refilled carry no state worth keeping. Retiring one with compare-and-set
+    // means a token taken concurrently either lands before, keeping the bucket, or finds it retired.
+    void pruneFullBuckets(long now) {
+        for (Long userId : userBuckets.keySet()) {
+            userBuckets.computeIfPresent(userId, (id, bucket) -> {
+                long theoreticalArrival = bucket.get();
+                return theoreticalArrival <= now && bucket.compareAndSet(theoreticalArrival, RETIRED) ? null : bucket;
+            });
+        }
+    }
+
+    /**
+     * GCRA form of a token bucket: the bucket holds the time at which it will be
+     * completely full again. Returns 0 if a token was taken, otherwise how long to wait.
+     */
+    long takeUserToken(Long userId, long now) {
+        AtomicLong bucket = userBuckets.computeIfAbsent(userId, id -> new AtomicLong(now));
+        while (true) {
+            long theoreticalArrival = bucket.get();
+            if (theoreticalArrival == RETIRED) {
+                // Pruned while full; its replacement is just as full
+                bucket = userBuckets.computeIfAbsent(userId, id -> new AtomicLong(now));
+                continue;
+            }
+            long base = Math.max(theoreticalArrival, now);
+            long waitNanos = base - burstToleranceNanos - now;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(theoreticalArrival, base + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    private static long toRetrySeconds(long nanos) {
+        return Math.max(1, (nanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.config.InstanceIdentity;
+import com.example.resumeanalyzer.model.AnalysisStatus;
+import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.example.resumeanalyzer.repository.AnalysisRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fans completion events out to every backend instance.
+ *
+ * Replies from the NLP service are consumed once per cluster through the shared
+ * {@code resume-group}, but the client waiting for a given analysis may be
+ * long-polling on any node behind the load balancer. After a result is persisted
+ * the consuming node publishes a small notice on the completion topic, which each
+ * instance reads in its own consumer group and uses to wake its local watchers.
+ * The same notice withdraws the analysis from every instance's dispatcher, so one
+ * cancelled on one node is not published later by another.
+ */
+@Service
+public class AnalysisCompletionBroadcaster {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final AnalysisRepository analysisRepository;
+    private final AnalysisCompletionRegistry completionRegistry;
+    private final AnalysisAdmissionService admissionService;
+    private final AnalysisDispatcher dispatcher;
+    private final AnalysisResultCache resultCache;
+    private final String instanceId;
+
+    @Value("${kafka.topic.completion:resume-analysis-completed}")
+    private String completionTopic;
+
+    public AnalysisCompletionBroadcaster(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper,
+            AnalysisRepository analysisRepository, AnalysisCompletionRegistry completionRegistry,
+            AnalysisAdmissionService admissionService, AnalysisDispatcher dispatcher,
+            AnalysisResultCache resultCache, InstanceIdentity instanceIdentity) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.analysisRepository = analysisRepository;
+        this.completionRegistry = completionRegistry;
+        this.admissionService = admissionService;
+        this.dispatcher = dispatcher;
+        this.resultCache = resultCache;
+        this.instanceId = instanceIdentity.getId();
+    }
+
+    /**
+     * Completes watchers on this node immediately and tells the other nodes to do the same.
+     */
+    public void analysisFinished(ResumeAnalysis analysis) {
+        completionRegistry.complete(analysis);
+        admissionService.finished(analysis.getId());
+        dispatcher.finished(analysis.getId());
+
+        try {
+            Map<String, Object> notice = new HashMap<>();
+            notice.put("analysis_id", analysis.getId());
+            notice.put("status", analysis.getStatus().name());
+            notice.put("instance_id", instanceId);
+            if (analysis.getStatus() == AnalysisStatus.FAILED) {
+                notice.put("content_hash", analysis.getContentHash());
+            }
+            kafkaTemplate.send(completionTopic, String.valueOf(analysis.getId()), objectMapper.writeValueAsString(notice));
+        } catch (Exception e) {
+            // Remote watchers fall back to their long-poll timeout and re-poll the database
+            System.err.println("Failed to broadcast completion for analysis " + analysis.getId() + ": " + e.getMessage());
+        }
+    }
+
+    @KafkaListener(topics = "${kafka.topic.completion:resume-analysis-completed}",
+            containerFactory = "broadcastListenerContainerFactory")
+    public void onCompletionNotice(String message) {
+        try {
+            JsonNode notice = objectMapper.readTree(message);
+            if (instanceId.equals(notice.path("instance_id").asText())) {
+                return; // already completed locally
+            }
+
+            long analysisId = notice.get("analysis_id").asLong();
+            admissionService.finished(analysisId);
+            dispatcher.finished(analysisId);
+            // Identical submissions coalesced onto it here would otherwise wait on a request never sent
+            String contentHash = notice.path("content_hash").asText(null);
+            if (contentHash != null && AnalysisStatus.FAILED.name().equals(notice.path("status").asText())) {
+                resultCache.withdrawn(analysisId, contentHash);
+            }
+            if (completionRegistry.isWatching(analysisId)) {
+                analysisRepository.findById(analysisId).ifPresent(completionRegistry::complete);
+            }
+        } catch (Exception e) {
+            System.err.println("Ignoring malformed completion notice: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.model.ResumeAnalysis;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks clients long-polling for an analysis so the Kafka consumer can wake them
+ * up as soon as a result is persisted. Nothing here blocks a thread; each watcher
+ * is a future that the web layer turns into a deferred response.
+ */
+@Component
+public class AnalysisCompletionRegistry {
+
+    private final Map<Long, Set<CompletableFuture<ResumeAnalysis>>> watchers = new ConcurrentHashMap<>();
+
+    public CompletableFuture<ResumeAnalysis> watch(Long analysisId) {
+        CompletableFuture<ResumeAnalysis> future = new CompletableFuture<>();
+        watchers.compute(analysisId, (id, set) -> {
+            Set<CompletableFuture<ResumeAnalysis>> waiting = set != null ? set : ConcurrentHashMap.newKeySet();
+            waiting.add(future);
+            return waiting;
+        });
+        return future;
+    }
+
+    public void unwatch(Long analysisId, CompletableFuture<ResumeAnalysis> future) {
+        watchers.computeIfPresent(analysisId, (id, set) -> {
+            set.remove(future);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    public void complete(ResumeAnalysis analysis) {
+        Set<CompletableFuture<ResumeAnalysis>> waiting = watchers.remove(analysis.getId());
+        if (waiting != null) {
+            waiting.forEach(future -> future.complete(analysis));
+        }
+    }
+
+    public boolean isWatching(Long analysisId) {
+        return watchers.containsKey(analysisId);
+    }
+
+    public int size() {
+        return watchers.size();
+    }
+}
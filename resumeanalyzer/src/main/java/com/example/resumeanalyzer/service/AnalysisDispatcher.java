@@ -0,0 +1,335 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.util.LruCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Orders analysis requests between users before they are published to Kafka.
+ *
+ * Kafka serves a partition first-in first-out, so a user who queues hundreds of
+ * resumes at once would hold up everyone behind them. Instead, submissions wait
+ * here in per-user queues and are released round-robin across users, with
+ * interactive work taking {@code app.dispatch.interactive-weight} turns for each
+ * bulk turn. Only {@code app.dispatch.max-outstanding} requests are released to
+ * the NLP service at a time; each completion lets the next one through.
+ *
+ * Released requests are published on the dispatcher's own threads: completions
+ * arrive on Kafka listener threads, which must not wait on a claim-check upload
+ * or a full producer buffer.
+ *
+ * An analysis that finishes anywhere in the cluster, e.g. cancelled with its batch,
+ * is taken out of the queues here and any later submission of it is ignored, so a
+ * request still being prepared when it finished is never published.
+ */
+@Service
+public class AnalysisDispatcher {
+
+    public enum Priority {
+        INTERACTIVE,
+        BULK
+    }
+
+    private record Pending(Long analysisId, Runnable publish, Consumer<Exception> onFailure, long enqueuedAtNanos) {
+    }
+
+    // Users with waiting work are served in turn; a user is re-queued behind the others after each turn
+    private static final class ClassQueue {
+        final Map<Long, ArrayDeque<Pending>> byUser = new HashMap<>();
+        final ArrayDeque<Long> turnOrder = new ArrayDeque<>();
+        // Queued analysis -> its user, so a finished analysis is found without scanning every queue
+        final Map<Long, Long> userOf = new HashMap<>();
+        int size;
+
+        void add(Long userId, Pending pending) {
+            ArrayDeque<Pending> queue = byUser.computeIfAbsent(userId, id -> new ArrayDeque<>());
+            if (queue.isEmpty()) {
+                turnOrder.addLast(userId);
+            }
+            queue.addLast(pending);
+            userOf.put(pending.analysisId(), userId);
+            size++;
+        }
+
+        // Drops the given analyses from the queue, returning the ones found
+        List<Long> remove(Collection<Long> analysisIds) {
+            List<Long> removed = new ArrayList<>();
+            for (Long analysisId : analysisIds) {
+                Long userId = userOf.remove(analysisId);
+                if (userId == null) {
+                    continue;
+                }
+                ArrayDeque<Pending> queue = byUser.get(userId);
+                queue.removeIf(pending -> pending.analysisId().equals(analysisId));
+                if (queue.isEmpty()) {
+                    byUser.remove(userId);
+                    turnOrder.remove(userId);
+                }
+                removed.add(analysisId);
+            }
+            size -= removed.size();
+            return removed;
+        }
+
+        boolean contains(Long analysisId) {
+            return userOf.containsKey(analysisId);
+        }
+
+        Pending next() {
+            Long userId = turnOrder.pollFirst();
+            ArrayDeque<Pending> queue = byUser.get(userId);
+            Pending pending = queue.pollFirst();
+            if (queue.isEmpty()) {
+                byUser.remove(userId);
+            } else {
+                turnOrder.addLast(userId);
+            }
+            userOf.remove(pending.analysisId());
+            size--;
+            return pending;
+        }
+    }
+
+    private final Map<Priority, ClassQueue> queues = new EnumMap<>(Priority.class);
+    // Released analyses and when they were released, to expire ones whose completion is never seen
+    private final Map<Long, Long> outstanding = new HashMap<>();
+    // Recently finished analyses; a submission arriving after its analysis finished is dropped
+    private final LruCache<Long, Boolean> settled = new LruCache<>(10000);
+    private int interactiveTurns;
+
+    /**
+     * Result of {@link #withdraw}: analyses taken out of the queue before being published,
+     * and analyses already released to the NLP service.
+     */
+    public record Withdrawal(Set<Long> withdrawn, Set<Long> released) {
+    }
+
+    private final Map<Priority, Timer> queueWait = new EnumMap<>(Priority.class);
+    private final Executor publisher;
+
+    @Value("${app.dispatch.max-outstanding:8}")
+    private int maxOutstanding;
+
+    @Value("${app.dispatch.interactive-weight:4}")
+    private int interactiveWeight;
+
+    @Value("${app.dispatch.outstanding-ttl-seconds:600}")
+    private long outstandingTtlSeconds;
+
+    @Autowired
+    public AnalysisDispatcher(MeterRegistry meterRegistry,
+            @Value("${app.dispatch.publish-threads:2}") int publishThreads) {
+        // Unbounded, but never holds more than max-outstanding requests
+        this(meterRegistry, new ThreadPoolExecutor(publishThreads, publishThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("analysis-publish-")));
+    }
+
+    AnalysisDispatcher(MeterRegistry meterRegistry, Executor publisher) {
+        this.publisher = publisher;
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ClassQueue());
+            String tag = priority.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("analysis.dispatch.queued", this, d -> d.queuedCount(priority)).tag("priority", tag)
+                    .register(meterRegistry);
+            queueWait.put(priority, Timer.builder("analysis.dispatch.queue-wait").tag("priority", tag)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("analysis.dispatch.outstanding", this, AnalysisDispatcher::outstandingCount)
+                .register(meterRegistry);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (publisher instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Queues a request for release. {@code publish} runs on a publishing thread once it
+     * is this user's turn and the NLP service has room. If it throws, the request's slot
+     * is freed and {@code onFailure} is called with the exception.
+     */
+    public void submit(Long userId, Priority priority, Long analysisId, Runnable publish,
+            Consumer<Exception> onFailure) {
+        synchronized (this) {
+            if (settled.get(analysisId) != null) {
+                return; // finished, e.g. cancelled, while its text was being extracted
+            }
+            queues.get(priority).add(userId, new Pending(analysisId, publish, onFailure, System.nanoTime()));
+        }
+        drain();
+    }
+
+    /**
+     * Called for every completed or failed analysis seen on this instance, local or
+     * broadcast by another node. Takes it out of the queues, keeps it from being queued
+     * again, and frees its slot at the NLP service if this instance released it.
+     */
+    public void finished(Long analysisId) {
+        boolean freed;
+        synchronized (this) {
+            settled.put(analysisId, Boolean.TRUE);
+            List<Long> ids = List.of(analysisId);
+            queues.values().forEach(queue -> queue.remove(ids));
+            freed = outstanding.remove(analysisId) != null;
+        }
+        if (freed) {
+            drain();
+        }
+    }
+
+    /**
+     * Frees the slot of a request that will not be answered, e.g. one presumed lost before
+     * the analysis is published again. Unlike {@link #finished}, the analysis may be queued again.
+     */
+    public void release(Long analysisId) {
+        boolean freed;
+        synchronized (this) {
+            freed = outstanding.remove(analysisId) != null;
+        }
+        if (freed) {
+            drain();
+        }
+    }
+
+    /**
+     * Removes the given analyses from the queues of this instance so they are never
+     * published. Analyses already released cannot be recalled and are reported as such.
+     */
+    public synchronized Withdrawal withdraw(Collection<Long> analysisIds) {
+        Set<Long> ids = new HashSet<>(analysisIds);
+        Set<Long> withdrawn = new HashSet<>();
+        for (ClassQueue queue : queues.values()) {
+            withdrawn.addAll(queue.remove(ids));
+        }
+        Set<Long> released = new HashSet<>(ids);
+        released.retainAll(outstanding.keySet());
+        return new Withdrawal(withdrawn, released);
+    }
+
+    /**
+     * Whether the analysis is still waiting in a queue of this instance, not yet published.
+     */
+    public synchronized boolean isQueued(Long analysisId) {
+        return queues.values().stream().anyMatch(queue -> queue.contains(analysisId));
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void expireStaleOutstanding() {
+        long cutoff = System.currentTimeMillis() - outstandingTtlSeconds * 1000;
+        boolean freed;
+        synchronized (this) {
+            freed = outstanding.values().removeIf(releasedAt -> releasedAt < cutoff);
+        }
+        if (freed) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        List<Pending> released = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            while (outstanding.size() < maxOutstanding) {
+                Priority priority = nextPriority();
+                if (priority == null) {
+                    break;
+                }
+                Pending pending = queues.get(priority).next();
+                outstanding.put(pending.analysisId(), now);
+                queueWait.get(priority).record(System.nanoTime() - pending.enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+                released.add(pending);
+            }
+        }
+
+        // Publishing may block (claim-check upload, full producer buffer), so it leaves the caller's thread
+        for (Pending pending : released) {
+            try {
+                publisher.execute(() -> publish(pending));
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the reaper publishes it again from another instance
+                System.err.println("Could not publish analysis " + pending.analysisId() + ": " + e.getMessage());
+                synchronized (this) {
+                    outstanding.remove(pending.analysisId());
+                }
+            }
+        }
+    }
+
+    private void publish(Pending pending) {
+        if (settled.get(pending.analysisId()) != null) {
+            release(pending.analysisId()); // finished between its release and now
+            return;
+        }
+        try {
+            pending.publish().run();
+        } catch (Exception e) {
+            // A request that never left holds no slot at the NLP service
+            release(pending.analysisId());
+            try {
+                pending.onFailure().accept(e);
+            } catch (Exception failure) {
+                System.err.println("Could not fail analysis " + pending.analysisId() + ": " + failure.getMessage());
+            }
+        }
+    }
+
+    // Caller holds the lock
+    private Priority nextPriority() {
+        boolean interactiveWaiting = queues.get(Priority.INTERACTIVE).size > 0;
+        boolean bulkWaiting = queues.get(Priority.BULK).size > 0;
+        if (interactiveWaiting && (!bulkWaiting || interactiveTurns < interactiveWeight)) {
+            interactiveTurns++;
+            return Priority.INTERACTIVE;
+        }
+        if (bulkWaiting) {
+            interactiveTurns = 0;
+            return Priority.BULK;
+        }
+        return null;
+    }
+
+    private synchronized int queuedCount(Priority priority) {
+        return queues.get(priority).size;
+    }
+
+    private synchronized int outstandingCount() {
+        return outstanding.size();
+    }
+}
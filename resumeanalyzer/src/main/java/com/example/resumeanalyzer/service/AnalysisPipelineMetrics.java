@@ -0,0 +1,110 @@
+package com.example.resumeanalyzer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Latency of each stage an analysis passes through, from upload to the persisted
+ * result, published as {@code analysis.pipeline.stage} with a {@code stage} tag.
+ *
+ * The Kafka wait on the request topic and the NLP processing time are measured by
+ * the NLP service and reported back in its reply; everything else is timed here.
+ */
+@Component
+public class AnalysisPipelineMetrics {
+
+    public enum Stage {
+        UPLOAD,          // storing the resume in MinIO
+        EXTRACT,         // extracting the resume text, when done here rather than by the NLP service
+        PERSIST,         // saving the pending analysis row
+        PUBLISH,         // producer send until the broker acknowledges
+        REQUEST_QUEUE,   // waiting on the request topic for an NLP worker
+        NLP,             // analysis inside the NLP service
+        REPLY_QUEUE,     // waiting on the reply topic for this consumer
+        CONSUME,         // applying a batch of replies to the database
+        END_TO_END;      // row created until the result is persisted
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Counter statusWaitTimeouts;
+    private final Counter batchStreamTimeouts;
+    private final Counter unknownReplies;
+    private final Counter duplicateReplies;
+    private final Counter supersededReplies;
+    private final Counter malformedReplies;
+
+    public AnalysisPipelineMetrics(MeterRegistry meterRegistry, AnalysisCompletionRegistry completionRegistry) {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, Timer.builder("analysis.pipeline.stage")
+                    .tag("stage", stage.tag())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+
+        this.statusWaitTimeouts = Counter.builder("analysis.wait.timeouts").tag("endpoint", "status")
+                .register(meterRegistry);
+        this.batchStreamTimeouts = Counter.builder("analysis.wait.timeouts").tag("endpoint", "batch-stream")
+                .register(meterRegistry);
+        this.unknownReplies = Counter.builder("analysis.replies.unmatched").tag("reason", "unknown-analysis")
+                .register(meterRegistry);
+        this.duplicateReplies = Counter.builder("analysis.replies.unmatched").tag("reason", "already-completed")
+                .register(meterRegistry);
+        this.supersededReplies = Counter.builder("analysis.replies.unmatched").tag("reason", "superseded-attempt")
+                .register(meterRegistry);
+        this.malformedReplies = Counter.builder("analysis.replies.unmatched").tag("reason", "malformed")
+                .register(meterRegistry);
+
+        // Clients currently held open waiting for a result, one future each
+        Gauge.builder("analysis.completion.watchers", completionRegistry, AnalysisCompletionRegistry::size)
+                .register(meterRegistry);
+    }
+
+    public Timer timer(Stage stage) {
+        return stages.get(stage);
+    }
+
+    public void record(Stage stage, Duration duration) {
+        if (!duration.isNegative()) {
+            stages.get(stage).record(duration);
+        }
+    }
+
+    public void statusWaitTimedOut() {
+        statusWaitTimeouts.increment();
+    }
+
+    public void batchStreamTimedOut() {
+        batchStreamTimeouts.increment();
+    }
+
+    public void unknownReplies(int count) {
+        unknownReplies.increment(count);
+    }
+
+    // Redelivery of the reply that completed the analysis
+    public void duplicateReply() {
+        duplicateReplies.increment();
+    }
+
+    // Answer to another publication of an analysis that has already been completed or failed
+    public void supersededReply() {
+        supersededReplies.increment();
+    }
+
+    public void malformedReply() {
+        malformedReplies.increment();
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.example.resumeanalyzer.repository.AnalysisRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Re-publishes analyses whose reply never arrived.
+ *
+ * The NLP service drops requests it cannot parse or fails on, and a request can be
+ * lost with the instance that held it in its dispatcher queue. Either way the row
+ * would stay pending forever. Every pending analysis carries a deadline; once it
+ * passes, the request is published again with a longer deadline, and after
+ * {@code app.reaper.max-attempts} publications the analysis is failed so clients
+ * get a definitive answer.
+ */
+@Service
+public class AnalysisReaper {
+
+    private static final String TIMED_OUT_TITLE = "Analysis Timed Out";
+
+    private final AnalysisRepository analysisRepository;
+    private final AnalysisService analysisService;
+    private final AnalysisDispatcher dispatcher;
+    private final AnalysisResultCache resultCache;
+    private final Counter republished;
+    private final Counter timedOut;
+
+    @Value("${app.reaper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.reaper.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.reaper.batch-size:100}")
+    private int batchSize;
+
+    // Legacy pending rows older than this are failed at startup rather than published again
+    @Value("${app.reaper.legacy-max-age-hours:24}")
+    private long legacyMaxAgeHours;
+
+    public AnalysisReaper(AnalysisRepository analysisRepository, AnalysisService analysisService,
+            AnalysisDispatcher dispatcher, AnalysisResultCache resultCache, MeterRegistry meterRegistry) {
+        this.analysisRepository = analysisRepository;
+        this.analysisService = analysisService;
+        this.dispatcher = dispatcher;
+        this.resultCache = resultCache;
+        this.republished = Counter.builder("analysis.reaper.republished").register(meterRegistry);
+        this.timedOut = Counter.builder("analysis.reaper.timed-out").register(meterRegistry);
+    }
+
+    /**
+     * Gives the reaper the analyses left pending by versions that had no status column or
+     * deadline, which it would otherwise never select.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void adoptLegacyPending() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime cutoff = now.minusHours(legacyMaxAgeHours);
+            int failed = analysisRepository.failLegacyPending(cutoff);
+            int adopted = analysisRepository.adoptLegacyPending(now, cutoff);
+            if (failed > 0 || adopted > 0) {
+                System.out.println("Legacy pending analyses: " + adopted + " scheduled for re-publishing, "
+                        + failed + " failed as too old");
+            }
+        } catch (Exception e) {
+            System.err.println("Could not adopt legacy pending analyses: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.reaper.initial-delay-ms:60000}",
+            fixedDelayString = "${app.reaper.interval-ms:30000}")
+    public void reapOverdue() {
+        if (!enabled) {
+            return;
+        }
+
+        List<ResumeAnalysis> overdue = analysisRepository.findOverdue(LocalDateTime.now(), Limit.of(batchSize));
+        for (ResumeAnalysis analysis : overdue) {
+            try {
+                reap(analysis);
+            } catch (Exception e) {
+                // Left overdue, so the next run tries again
+                System.err.println("Could not reap analysis " + analysis.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void reap(ResumeAnalysis analysis) {
+        Long analysisId = analysis.getId();
+        LocalDateTime deadline = analysis.getNextAttemptAt();
+        int attempts = analysis.getAttempts();
+
+        // Not lost, just waiting for its turn on this instance
+        if (dispatcher.isQueued(analysisId)) {
+            analysisRepository.rescheduleAttempt(analysisId, deadline, attempts, analysisService.queueDeadline());
+            return;
+        }
+
+        // An identical request is in flight here and will fill this one in when it completes
+        if (analysis.getContentHash() != null && !resultCache.leadOrJoin(analysis.getContentHash(), analysisId)) {
+            analysisRepository.rescheduleAttempt(analysisId, deadline, attempts,
+                    analysisService.replyDeadline(attempts));
+            return;
+        }
+
+        if (attempts >= maxAttempts) {
+            if (analysisRepository.rescheduleAttempt(analysisId, deadline, attempts, null) == 0) {
+                return; // completed or handled by another instance in the meantime
+            }
+            System.err.println("Analysis " + analysisId + " got no reply after " + attempts + " attempts");
+            analysis.setNextAttemptAt(null);
+            analysis.setJobTitle(TIMED_OUT_TITLE);
+            // This row leads its content here, so only the submissions coalesced onto it fail with it;
+            // other pending rows of the same content are waiting on requests of their own
+            analysisService.failAnalysis(analysis, true);
+            timedOut.increment();
+            return;
+        }
+
+        if (analysisRepository.rescheduleAttempt(analysisId, deadline, attempts + 1,
+                analysisService.queueDeadline()) == 0) {
+            return;
+        }
+        System.out.println("Re-publishing analysis " + analysisId + " (attempt " + (attempts + 1) + ")");
+        analysis.setAttempts(attempts + 1);
+        // The lost request may still hold a slot at the NLP service
+        dispatcher.release(analysisId);
+        analysisService.republish(analysis);
+        republished.increment();
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.model.AnalysisResult;
+import com.example.resumeanalyzer.model.AnalysisStatus;
+import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.example.resumeanalyzer.repository.AnalysisRepository;
+import com.example.resumeanalyzer.util.LruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves analyses of an identical resume + job description pair without another
+ * LLM round-trip.
+ *
+ * Results are keyed by a content hash and looked up in a bounded in-memory tier,
+ * then in {@code analysis_history}. While a pair is being analyzed, identical
+ * submissions on this instance are coalesced onto the in-flight request; when any
+ * request for a hash completes, every pending row with that hash is filled in. When
+ * the in-flight request fails, only the submissions coalesced onto it here fail with it.
+ */
+@Service
+public class AnalysisResultCache {
+
+    private final AnalysisRepository analysisRepository;
+    private final LruCache<String, CachedResult> memoryTier;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    @Value("${app.analysis-cache.in-flight-ttl-seconds:600}")
+    private long inFlightTtlSeconds;
+
+    public AnalysisResultCache(AnalysisRepository analysisRepository, MeterRegistry meterRegistry,
+            @Value("${app.analysis-cache.max-entries:1000}") int maxEntries) {
+        this.analysisRepository = analysisRepository;
+        this.memoryTier = new LruCache<>(maxEntries);
+
+        this.memoryHits = Counter.builder("analysis.cache.hits").tag("tier", "memory").register(meterRegistry);
+        this.databaseHits = Counter.builder("analysis.cache.hits").tag("tier", "database").register(meterRegistry);
+        this.misses = Counter.builder("analysis.cache.misses").register(meterRegistry);
+        this.coalesced = Counter.builder("analysis.cache.coalesced").register(meterRegistry);
+        Gauge.builder("analysis.cache.in-flight", inFlight, Map::size).register(meterRegistry);
+        Gauge.builder("analysis.cache.memory.size", memoryTier, LruCache::size).register(meterRegistry);
+    }
+
+    // The legacy TEXT fields are carried along for analyses stored before the structured result
+    public record CachedResult(String jobTitle, Integer suitabilityScore, AnalysisResult result, String summary,
+            String matchedSkills, String missingSkills, String recommendation) {
+
+        static CachedResult from(ResumeAnalysis analysis) {
+            return new CachedResult(analysis.getJobTitle(), analysis.getSuitabilityScore(), analysis.getResult(),
+                    analysis.getSummary(), analysis.getMatchedSkills(), analysis.getMissingSkills(),
+                    analysis.getRecommendation());
+        }
+
+        void applyTo(ResumeAnalysis analysis) {
+            analysis.setJobTitle(jobTitle);
+            analysis.setSuitabilityScore(suitabilityScore);
+            analysis.setResult(result);
+            analysis.setSummary(summary);
+            analysis.setMatchedSkills(matchedSkills);
+            analysis.setMissingSkills(missingSkills);
+            analysis.setRecommendation(recommendation);
+            analysis.setStatus(AnalysisStatus.COMPLETED);
+            analysis.setProvisionalScore(null);
+            analysis.setProvisionalTerms(null);
+        }
+    }
+
+    // Followers are the analyses coalesced onto the leader on this instance
+    private record InFlight(Long leaderId, long startedAtMillis, Set<Long> followers) {
+    }
+
+    public String contentKey(String resumeSha256, String jobDescription) {
+        MessageDigest digest = sha256();
+        digest.update(resumeSha256.getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) 0);
+        digest.update(normalize(jobDescription).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Looks the pair up in memory, then in the database. Counts a miss when neither has it.
+     */
+    public Optional<CachedResult> lookup(String contentKey) {
+        CachedResult cached = memoryTier.get(contentKey);
+        if (cached != null) {
+            memoryHits.increment();
+            return Optional.of(cached);
+        }
+
+        Optional<CachedResult> stored = analysisRepository
+                .findFirstByContentHashAndStatusOrderByCreatedAtDesc(contentKey, AnalysisStatus.COMPLETED)
+                .map(CachedResult::from);
+        if (stored.isPresent()) {
+            databaseHits.increment();
+            memoryTier.put(contentKey, stored.get());
+        } else {
+            misses.increment();
+        }
+        return stored;
+    }
+
+    /**
+     * Registers the pending analysis as the one to publish for this key, unless an
+     * identical request is already in flight.
+     *
+     * @return {@code true} if the caller should publish the request to the NLP service
+     */
+    public boolean leadOrJoin(String contentKey, Long analysisId) {
+        long now = System.currentTimeMillis();
+        InFlight current = inFlight.compute(contentKey, (key, existing) -> {
+            if (existing == null) {
+                return new InFlight(analysisId, now, ConcurrentHashMap.newKeySet());
+            }
+            if (now - existing.startedAtMillis() > inFlightTtlSeconds * 1000) {
+                // The leader is presumed lost; its followers now wait on this request instead
+                Set<Long> followers = ConcurrentHashMap.newKeySet();
+                followers.addAll(existing.followers());
+                followers.remove(analysisId);
+                return new InFlight(analysisId, now, followers);
+            }
+            if (!existing.leaderId().equals(analysisId)) {
+                existing.followers().add(analysisId);
+            }
+            return existing;
+        });
+
+        if (!current.leaderId().equals(analysisId)) {
+            coalesced.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records a completed analysis and fills in every other pending analysis of the
+     * same content, returning those followers so their waiters can be notified.
+     */
+    public List<ResumeAnalysis> completed(ResumeAnalysis analysis) {
+        String contentKey = analysis.getContentHash();
+        if (contentKey == null) {
+            return List.of();
+        }
+
+        CachedResult result = CachedResult.from(analysis);
+        memoryTier.put(contentKey, result);
+        inFlight.remove(contentKey);
+
+        List<ResumeAnalysis> followers = analysisRepository.findByContentHashAndStatus(contentKey, AnalysisStatus.PENDING);
+        if (followers.isEmpty()) {
+            return followers;
+        }
+        followers.forEach(result::applyTo);
+        return analysisRepository.saveAll(followers);
+    }
+
+    /**
+     * Releases the in-flight entry of an analysis that will never complete and fails the
+     * pending analyses coalesced onto it on this instance, returning them so their waiters
+     * can be notified. Other pending analyses of the same content are left alone: they
+     * lead or follow requests of their own, possibly on other instances. The failed
+     * analysis itself must already be saved as failed.
+     */
+    public List<ResumeAnalysis> failed(ResumeAnalysis analysis) {
+        Set<Long> followers = release(analysis);
+        if (followers.isEmpty()) {
+            return List.of();
+        }
+
+        List<ResumeAnalysis> pending = analysisRepository.findAllById(followers).stream()
+                .filter(follower -> follower.getStatus() == AnalysisStatus.PENDING)
+                .toList();
+        if (pending.isEmpty()) {
+            return pending;
+        }
+        pending.forEach(follower -> follower.setStatus(AnalysisStatus.FAILED));
+        return analysisRepository.saveAll(pending);
+    }
+
+    /**
+     * Releases the in-flight entry of an analysis withdrawn before its request was sent,
+     * e.g. with a cancelled batch. The analyses coalesced onto it are not failed: they are
+     * made due for the reaper, which publishes the first of them in its place and lets
+     * the others follow it.
+     */
+    public void withdrawn(Long analysisId, String contentKey) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Long followerId : release(analysisId, contentKey)) {
+            analysisRepository.updateNextAttemptAt(followerId, now);
+        }
+    }
+
+    private Set<Long> release(ResumeAnalysis analysis) {
+        return release(analysis.getId(), analysis.getContentHash());
+    }
+
+    // Drops the analysis from the in-flight entry of its content, returning its followers if it led
+    private Set<Long> release(Long analysisId, String contentKey) {
+        if (contentKey == null) {
+            return Set.of();
+        }
+
+        InFlight existing = inFlight.get(contentKey);
+        if (existing == null) {
+            return Set.of();
+        }
+        if (!existing.leaderId().equals(analysisId)) {
+            existing.followers().remove(analysisId);
+            return Set.of();
+        }
+        // Joins happen inside compute, so none can slip in once the entry is removed
+        return inFlight.remove(contentKey, existing) ? Set.copyOf(existing.followers()) : Set.of();
+    }
+
+    private static String normalize(String jobDescription) {
+        return jobDescription.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
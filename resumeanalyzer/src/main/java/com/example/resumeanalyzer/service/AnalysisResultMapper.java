@@ -0,0 +1,82 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.model.AnalysisResult;
+import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps a completed analysis to the result payload returned by the status, history
+ * and batch endpoints.
+ */
+@Component
+public class AnalysisResultMapper {
+
+    private static final TypeReference<List<String>> SKILL_LIST = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+
+    public AnalysisResultMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public Map<String, Object> toResultMap(ResumeAnalysis completedAnalysis) {
+        AnalysisResult analysisResult = resultOf(completedAnalysis);
+        int score = completedAnalysis.getSuitabilityScore() != null ? completedAnalysis.getSuitabilityScore() : 0;
+
+        // Map Entity to Frontend JSON structure
+        Map<String, Object> result = new HashMap<>();
+        result.put("suitability_score", score);
+        result.put("compatibility_score", score);
+        result.put("is_suitable", analysisResult.suitable() != null ? analysisResult.suitable() : score >= 50);
+        result.put("summary", analysisResult.summary());
+        result.put("experience_level", analysisResult.experienceLevel());
+        result.put("matched_skills", analysisResult.matchedSkills());
+        result.put("missing_skills", analysisResult.missingSkills());
+        result.put("strengths", analysisResult.strengths());
+        result.put("recommendations", analysisResult.recommendations());
+        result.put("ats_keywords", analysisResult.atsKeywords());
+        result.put("interview_tips", analysisResult.interviewTips());
+
+        // Field names earlier clients read
+        result.put("key_strengths", analysisResult.matchedSkills());
+        result.put("key_gaps", analysisResult.missingSkills());
+        result.put("recommendation", String.join("\n\n", analysisResult.recommendations()));
+        return result;
+    }
+
+    /**
+     * The structured result of an analysis. Analyses stored before the result column
+     * existed are rebuilt from their TEXT columns.
+     */
+    public AnalysisResult resultOf(ResumeAnalysis analysis) {
+        if (analysis.getResult() != null) {
+            return analysis.getResult();
+        }
+
+        List<String> recommendations = analysis.getRecommendation() != null
+                ? List.of(analysis.getRecommendation().split("\n\n"))
+                : List.of();
+        return new AnalysisResult(analysis.getSuitabilityScore(), null, analysis.getSummary(), null,
+                legacySkills(analysis.getMatchedSkills()), legacySkills(analysis.getMissingSkills()), null,
+                recommendations, null, null);
+    }
+
+    private List<String> legacySkills(String stored) {
+        if (stored == null || stored.isBlank()) {
+            return List.of();
+        }
+        try {
+            // Stored as a JSON array, or as a raw string by some older versions
+            return stored.trim().startsWith("[") ? objectMapper.readValue(stored, SKILL_LIST) : List.of(stored);
+        } catch (Exception e) {
+            return List.of();
+        }
+    }
+}
@@ -1,24 +1,28 @@
 package com.example.resumeanalyzer.service;
 
+import com.example.resumeanalyzer.model.AnalysisBatch;
+import com.example.resumeanalyzer.model.AnalysisResult;
+import com.example.resumeanalyzer.model.AnalysisStatus;
 import com.example.resumeanalyzer.model.ResumeAnalysis;
 import com.example.resumeanalyzer.model.User;
 import com.example.resumeanalyzer.repository.AnalysisRepository;
 import com.example.resumeanalyzer.repository.UserRepository;
-import org.springframework.security.core.context.SecurityContextHolder;
+import com.example.resumeanalyzer.security.JwtPrincipal;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.List;
-import java.util.ArrayList;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.type.TypeReference;
 
 @Service
 public class AnalysisService {
@@ -27,122 +31,345 @@ public class AnalysisService {
     private final AnalysisRepository analysisRepository;
     private final UserRepository userRepository;
     private final ResumeAnalysisProducer resumeAnalysisProducer;
+    private final AnalysisDispatcher dispatcher;
+    private final AnalysisCompletionRegistry completionRegistry;
+    private final AnalysisCompletionBroadcaster completionBroadcaster;
+    private final AnalysisResultCache resultCache;
+    private final AdminStatsTracker statsTracker;
+    private final AnalysisPipelineMetrics pipelineMetrics;
+    private final ResumeTextExtractor textExtractor;
+    private final KeywordMatcher keywordMatcher;
+    private final AnalysisResultMapper resultMapper;
+    // Database work following a send acknowledgement; at most one task per request outstanding at the dispatcher
+    private final ExecutorService acknowledgements;
+
+    // How long a published request may go unanswered before it is presumed lost; doubles with each attempt
+    @Value("${app.reaper.reply-timeout-seconds:300}")
+    private long replyTimeoutSeconds;
+
+    @Value("${app.reaper.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    // How long a request may wait in a dispatcher queue, in case the instance holding it goes away
+    @Value("${app.reaper.queue-timeout-seconds:3600}")
+    private long queueTimeoutSeconds;
 
     public AnalysisService(MinioService minioService, AnalysisRepository analysisRepository,
-            UserRepository userRepository, ResumeAnalysisProducer resumeAnalysisProducer) {
+            UserRepository userRepository, ResumeAnalysisProducer resumeAnalysisProducer, AnalysisDispatcher dispatcher,
+            AnalysisCompletionRegistry completionRegistry, AnalysisCompletionBroadcaster completionBroadcaster,
+            AnalysisResultCache resultCache, AdminStatsTracker statsTracker, AnalysisPipelineMetrics pipelineMetrics,
+            ResumeTextExtractor textExtractor, KeywordMatcher keywordMatcher, AnalysisResultMapper resultMapper,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.minioService = minioService;
         this.analysisRepository = analysisRepository;
         this.userRepository = userRepository;
         this.resumeAnalysisProducer = resumeAnalysisProducer;
+        this.dispatcher = dispatcher;
+        this.completionRegistry = completionRegistry;
+        this.completionBroadcaster = completionBroadcaster;
+        this.resultCache = resultCache;
+        this.statsTracker = statsTracker;
+        this.pipelineMetrics = pipelineMetrics;
+        this.textExtractor = textExtractor;
+        this.keywordMatcher = keywordMatcher;
+        this.resultMapper = resultMapper;
+        this.acknowledgements = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newCachedThreadPool(Thread.ofPlatform().name("analysis-ack-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        acknowledgements.shutdown();
     }
 
-    // Shared map for coordinating async Kafka responses
-    public static final Map<Long, CompletableFuture<ResumeAnalysis>> pendingAnalyses = new ConcurrentHashMap<>();
+    public ResumeAnalysis submitAnalysis(MultipartFile resumeFile, String jobDescription) throws IOException {
+        return submitAnalysis(resumeFile, jobDescription, AnalysisDispatcher.Priority.INTERACTIVE);
+    }
+
+    public ResumeAnalysis submitAnalysis(MultipartFile resumeFile, String jobDescription,
+            AnalysisDispatcher.Priority priority) throws IOException {
+        // The upload is only readable during the request, so a resume that will be extracted is read
+        // once here and the same bytes are both stored and extracted later
+        String fileName = resumeFile.getOriginalFilename();
+        boolean wanted = textExtractor.wantsContent(fileName, resumeFile.getSize());
+        byte[] content = null;
+        if (wanted) {
+            try {
+                content = resumeFile.getBytes();
+            } catch (IOException e) {
+                System.err.println("Could not read " + fileName + " for extraction, sending a reference: "
+                        + e.getMessage());
+                textExtractor.countFallback();
+            }
+        }
+        byte[] uploaded = content;
 
-    public Map<String, Object> analyzeResume(MultipartFile resumeFile, String jobDescription) throws IOException {
-        // 1. Upload to MinIO
-        String fileUrl = "";
+        // 1. Upload to MinIO (content-addressed, so re-uploads of the same file are not stored again)
+        MinioService.StoredObject stored;
         try {
-            fileUrl = minioService.uploadFile(resumeFile);
+            stored = pipelineMetrics.timer(AnalysisPipelineMetrics.Stage.UPLOAD)
+                    .record(() -> uploaded != null
+                            ? minioService.uploadBytes(uploaded, fileName, resumeFile.getContentType())
+                            : minioService.uploadFile(resumeFile));
         } catch (Exception e) {
             System.err.println("MinIO upload failed: " + e.getMessage());
             throw new IOException("Failed to upload file to storage", e);
         }
 
-        // 2. Save Initial Record to DB
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // Files not extracted here at all are counted as references by the extractor itself
+        CompletableFuture<String> resumeText = uploaded != null || !wanted
+                ? textExtractor.resumeText(stored.objectName(), fileName, stored.size(), () -> uploaded)
+                : CompletableFuture.completedFuture(ResumeTextExtractor.reference(stored.objectName()));
 
+        // The caller was authenticated from token claims; a reference is enough for the foreign key
+        Long userId = JwtPrincipal.current().id();
         ResumeAnalysis analysis = new ResumeAnalysis();
-        analysis.setUser(user);
         analysis.setJobDescription(jobDescription);
+        analysis.setFileName(fileName);
+        return queueAnalysis(userId, analysis, stored, resumeText, jobDescription, priority);
+    }
+
+    /**
+     * Submits one resume of a bulk upload. The job description is kept on the batch, and
+     * the request waits in the dispatcher's bulk queue. Safe to call off the request thread.
+     */
+    public ResumeAnalysis submitBatchItem(Long userId, AnalysisBatch batch, String fileName, byte[] content,
+            String contentType) throws IOException {
+        MinioService.StoredObject stored;
+        try {
+            stored = pipelineMetrics.timer(AnalysisPipelineMetrics.Stage.UPLOAD)
+                    .record(() -> minioService.uploadBytes(content, fileName, contentType));
+        } catch (Exception e) {
+            System.err.println("MinIO upload failed: " + e.getMessage());
+            throw new IOException("Failed to upload file to storage", e);
+        }
+
+        CompletableFuture<String> resumeText = textExtractor.resumeText(stored.objectName(), fileName, stored.size(),
+                () -> content);
+        ResumeAnalysis analysis = new ResumeAnalysis();
+        analysis.setBatch(batch);
+        analysis.setFileName(fileName);
+        return queueAnalysis(userId, analysis, stored, resumeText, batch.getJobDescription(),
+                AnalysisDispatcher.Priority.BULK);
+    }
+
+    private ResumeAnalysis queueAnalysis(Long userId, ResumeAnalysis analysis, MinioService.StoredObject stored,
+            CompletableFuture<String> resumeText, String jobDescription, AnalysisDispatcher.Priority priority) {
+        String fileUrl = stored.objectName();
+
+        // 2. Identical resume + job description pairs can reuse an earlier result
+        String contentKey = resultCache.contentKey(stored.sha256(), jobDescription);
+        Optional<AnalysisResultCache.CachedResult> cached = resultCache.lookup(contentKey);
+
+        // 3. Save Initial Record to DB
+        User user = userRepository.getReferenceById(userId);
+        analysis.setUser(user);
         analysis.setJobTitle("Pending Analysis");
         analysis.setSuitabilityScore(0);
         analysis.setFileUrl(fileUrl);
+        analysis.setContentHash(contentKey);
+        analysis.setStatus(AnalysisStatus.PENDING);
+        analysis.setAttempts(1);
+        analysis.setNextAttemptAt(queueDeadline());
+        cached.ifPresent(result -> result.applyTo(analysis));
+
+        // A keyword match to show until the NLP result arrives; saved with the row when the text is
+        // already at hand, otherwise filled in once it has been extracted
+        boolean textReady = resumeText.isDone();
+        if (cached.isEmpty() && textReady) {
+            applyProvisionalScore(analysis, resumeText.join(), jobDescription);
+        }
 
         // Save and get ID
-        analysis = analysisRepository.save(analysis);
+        ResumeAnalysis saved = pipelineMetrics.timer(AnalysisPipelineMetrics.Stage.PERSIST)
+                .record(() -> analysisRepository.save(analysis));
+        if (cached.isEmpty() && !textReady) {
+            resumeText.thenAccept(text -> storeProvisionalScore(saved.getId(), text, jobDescription));
+        }
+        statsTracker.analysisSubmitted();
+        if (cached.isPresent()) {
+            statsTracker.analysisCompleted(saved.getSuitabilityScore());
+        }
+        if (cached.isPresent() || !resultCache.leadOrJoin(contentKey, saved.getId())) {
+            // Already answered, or an identical request is in flight and will fill this row in
+            return saved;
+        }
+
+        // 4. Queue for Kafka (Python Service) behind other users' work. The result arrives later
+        // through ResumeAnalysisConsumer.
+        dispatch(userId, priority, saved.getId(), 1, resumeText, jobDescription);
+        return saved;
+    }
 
-        // Register Future for waiting
-        CompletableFuture<ResumeAnalysis> future = new CompletableFuture<>();
-        pendingAnalyses.put(analysis.getId(), future);
+    /**
+     * Publishes a pending analysis again after its earlier request went unanswered. The
+     * caller has already recorded the attempt.
+     */
+    void republish(ResumeAnalysis analysis) {
+        String jobDescription = analysis.getJobDescription() != null
+                ? analysis.getJobDescription()
+                : analysis.getBatch().getJobDescription();
+        AnalysisDispatcher.Priority priority = analysis.getBatch() != null
+                ? AnalysisDispatcher.Priority.BULK
+                : AnalysisDispatcher.Priority.INTERACTIVE;
+        dispatch(analysis.getUser().getId(), priority, analysis.getId(), analysis.getAttempts(),
+                resumeTextOf(analysis), jobDescription);
+    }
+
+    // Queued once the resume text is ready. Delivery is confirmed asynchronously; the callback runs on
+    // the producer's I/O thread, so the database work that follows is handed off to a thread of our own.
+    // A send that fails before that (claim-check upload, full buffer) is reported by the dispatcher.
+    private void dispatch(Long userId, AnalysisDispatcher.Priority priority, Long analysisId, int attempt,
+            CompletableFuture<String> resumeText, String jobDescription) {
+        resumeText.thenAccept(text -> dispatcher.submit(userId, priority, analysisId,
+                () -> resumeAnalysisProducer.sendAnalysisRequest(analysisId, attempt, text, jobDescription)
+                        .whenCompleteAsync((result, e) -> {
+                            if (e != null) {
+                                publishFailed(analysisId, e);
+                            } else {
+                                awaitReply(analysisId, attempt);
+                            }
+                        }, acknowledgements),
+                e -> publishFailed(analysisId, e)));
+    }
 
-        // 3. Send to Kafka (Python Service)
-        String resumeText = "Resume file: " + fileUrl;
+    // The request left the queue; from now on the reply is what is being waited for
+    private void awaitReply(Long analysisId, int attempt) {
         try {
-            if (resumeFile.getOriginalFilename() != null && resumeFile.getOriginalFilename().endsWith(".txt")) {
-                resumeText = new String(resumeFile.getBytes());
+            analysisRepository.updateNextAttemptAt(analysisId, replyDeadline(attempt));
+        } catch (Exception e) {
+            // The queue deadline stays in place and the reaper checks the analysis later than it would have
+            System.err.println("Could not record publication of analysis " + analysisId + ": " + e.getMessage());
+        }
+    }
+
+    private void applyProvisionalScore(ResumeAnalysis analysis, String resumeText, String jobDescription) {
+        KeywordMatcher.Match match = provisionalMatch(resumeText, jobDescription);
+        if (match != null) {
+            analysis.setProvisionalScore(match.score());
+            analysis.setProvisionalTerms(String.join(",", match.terms()));
+        }
+    }
+
+    private void storeProvisionalScore(Long analysisId, String resumeText, String jobDescription) {
+        try {
+            KeywordMatcher.Match match = provisionalMatch(resumeText, jobDescription);
+            if (match != null) {
+                analysisRepository.updateProvisionalScore(analysisId, match.score(), String.join(",", match.terms()));
             }
         } catch (Exception e) {
-            // ignore
+            // Only the preview is lost; the analysis itself goes ahead
+            System.err.println("Could not store provisional score of analysis " + analysisId + ": " + e.getMessage());
         }
+    }
 
-        resumeAnalysisProducer.sendAnalysisRequest(analysis.getId(), resumeText, jobDescription);
+    // Nothing to match when the text is left to the NLP service to extract
+    private KeywordMatcher.Match provisionalMatch(String resumeText, String jobDescription) {
+        if (resumeText.startsWith(ResumeTextExtractor.reference(""))) {
+            return null;
+        }
+        return keywordMatcher.match(resumeText, jobDescription);
+    }
+
+    LocalDateTime queueDeadline() {
+        return LocalDateTime.now().plusSeconds(queueTimeoutSeconds);
+    }
+
+    LocalDateTime replyDeadline(int attempt) {
+        long timeout = replyTimeoutSeconds << Math.min(Math.max(attempt - 1, 0), 20);
+        return LocalDateTime.now().plusSeconds(Math.min(timeout, maxBackoffSeconds));
+    }
+
+    // Usually still cached from the first publication; otherwise read back from MinIO
+    private CompletableFuture<String> resumeTextOf(ResumeAnalysis analysis) {
+        return textExtractor.resumeText(analysis.getFileUrl(), analysis.getFileName(), 0,
+                () -> minioService.getBytes(minioService.getBucketName(), analysis.getFileUrl()));
+    }
 
-        // 4. Wait for response (Pseudo-Sync)
+    /**
+     * Fails an analysis whose request never reached Kafka, together with any identical
+     * submissions waiting on it, and wakes clients polling for them.
+     */
+    void publishFailed(Long analysisId, Throwable cause) {
+        System.err.println("Failed to publish analysis request " + analysisId + ": " + cause.getMessage());
         try {
-            // Wait up to 30 seconds for the Python service to reply
-            ResumeAnalysis completedAnalysis = future.get(30, TimeUnit.SECONDS);
-
-            // Map Entity to Frontend JSON structure
-            Map<String, Object> result = new HashMap<>();
-            result.put("suitability_score", completedAnalysis.getSuitabilityScore());
-            result.put("is_suitable", completedAnalysis.getSuitabilityScore() >= 50); // Simple logic
-            result.put("recommendation", completedAnalysis.getRecommendation());
-
-            // Convert stored JSON strings back to Lists
-            ObjectMapper mapper = new ObjectMapper();
-
-            if (completedAnalysis.getMatchedSkills() != null) {
-                try {
-                    // Check if it's a JSON array string
-                    String ms = completedAnalysis.getMatchedSkills();
-                    if (ms.trim().startsWith("[")) {
-                        result.put("key_strengths", mapper.readValue(ms, new TypeReference<List<String>>() {
-                        }));
-                    } else {
-                        // Fallback for raw string
-                        result.put("key_strengths", List.of(ms));
-                    }
-                } catch (Exception e) {
-                    result.put("key_strengths", new ArrayList<>());
-                }
-            } else {
-                result.put("key_strengths", new ArrayList<>());
+            Optional<ResumeAnalysis> analysisOpt = analysisRepository.findById(analysisId);
+            if (analysisOpt.isEmpty() || analysisOpt.get().getStatus() != AnalysisStatus.PENDING) {
+                return;
             }
+            failAnalysis(analysisOpt.get(), true);
+        } catch (Exception e) {
+            System.err.println("Could not mark analysis " + analysisId + " as failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Marks a pending analysis as failed and wakes clients waiting for it. When the analysis
+     * was the one published for its content, the identical submissions coalesced onto it
+     * are failed as well, since no reply will come for them.
+     */
+    public void failAnalysis(ResumeAnalysis analysis, boolean publishedForContent) {
+        analysis.setStatus(AnalysisStatus.FAILED);
+        analysisRepository.save(analysis);
+        statsTracker.analysisFailed();
+        completionBroadcaster.analysisFinished(analysis);
 
-            if (completedAnalysis.getMissingSkills() != null) {
-                try {
-                    String ms = completedAnalysis.getMissingSkills();
-                    if (ms.trim().startsWith("[")) {
-                        result.put("key_gaps", mapper.readValue(ms, new TypeReference<List<String>>() {
-                        }));
-                    } else {
-                        result.put("key_gaps", List.of(ms));
-                    }
-                } catch (Exception e) {
-                    result.put("key_gaps", new ArrayList<>());
-                }
-            } else {
-                result.put("key_gaps", new ArrayList<>());
+        if (publishedForContent) {
+            for (ResumeAnalysis follower : resultCache.failed(analysis)) {
+                statsTracker.analysisFailed();
+                completionBroadcaster.analysisFinished(follower);
             }
+        }
+    }
 
-            return result;
+    /**
+     * Fails a pending analysis withdrawn before its request was sent, e.g. with a cancelled
+     * batch, and wakes clients waiting for it. Identical submissions coalesced onto it are
+     * not failed; one of them is published in its place.
+     */
+    public void cancelAnalysis(ResumeAnalysis analysis) {
+        analysis.setStatus(AnalysisStatus.FAILED);
+        analysisRepository.save(analysis);
+        statsTracker.analysisFailed();
+        completionBroadcaster.analysisFinished(analysis);
+        resultCache.withdrawn(analysis.getId(), analysis.getContentHash());
+    }
 
-        } catch (Exception e) {
-            System.err.println("Timeout or error waiting for analysis: " + e.getMessage());
-            // Fallback to provisional if timeout
-            Map<String, Object> provisionalResult = new HashMap<>();
-            provisionalResult.put("suitability_score", 0);
-            provisionalResult.put("is_suitable", false);
-            provisionalResult.put("job_title", "Analysis in Progress...");
-            provisionalResult.put("status", "PENDING_TIMEOUT");
-            provisionalResult.put("message", "Analysis taking longer than expected. Check history later.");
-            return provisionalResult;
-        } finally {
-            // Cleanup
-            pendingAnalyses.remove(analysis.getId());
+    public Optional<ResumeAnalysis> findOwnedAnalysis(Long analysisId, Long userId) {
+        return analysisRepository.findByIdAndUserId(analysisId, userId);
+    }
+
+    public CompletableFuture<ResumeAnalysis> awaitCompletion(Long analysisId) {
+        return completionRegistry.watch(analysisId);
+    }
+
+    public void stopWaiting(Long analysisId, CompletableFuture<ResumeAnalysis> future) {
+        completionRegistry.unwatch(analysisId, future);
+    }
+
+    public Map<String, Object> toStatusResponse(ResumeAnalysis analysis) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("analysisId", analysis.getId());
+        response.put("status", analysis.getStatus().name());
+        if (analysis.getStatus() == AnalysisStatus.COMPLETED) {
+            response.put("result", toResultMap(analysis));
+        } else if (analysis.getStatus() == AnalysisStatus.PENDING && analysis.getProvisionalScore() != null) {
+            // Keyword match only, replaced by the full result when it arrives
+            String terms = analysis.getProvisionalTerms();
+            Map<String, Object> provisional = new HashMap<>();
+            provisional.put("suitability_score", analysis.getProvisionalScore());
+            provisional.put("matched_skills", terms == null || terms.isEmpty() ? List.of() : List.of(terms.split(",")));
+            response.put("provisional", provisional);
         }
+        return response;
+    }
+
+    public Map<String, Object> toResultMap(ResumeAnalysis completedAnalysis) {
+        return resultMapper.toResultMap(completedAnalysis);
+    }
+
+    public AnalysisResult resultOf(ResumeAnalysis analysis) {
+        return resultMapper.resultOf(analysis);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,525 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.model.AnalysisBatch;
+import com.example.resumeanalyzer.model.AnalysisStatus;
+import com.example.resumeanalyzer.model.BatchItemSummary;
+import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.example.resumeanalyzer.repository.AnalysisBatchRepository;
+import com.example.resumeanalyzer.repository.AnalysisRepository;
+import com.example.resumeanalyzer.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Screens many resumes against one job description.
+ *
+ * Every resume becomes an ordinary analysis tied to an {@link AnalysisBatch}, queued
+ * at bulk priority so a large batch does not hold up interactive users. Results are
+ * pushed to the client over server-sent events as each analysis completes, ranked
+ * by score among the ones finished so far.
+ */
+@Service
+public class BatchAnalysisService {
+
+    private final AnalysisService analysisService;
+    private final AnalysisRepository analysisRepository;
+    private final AnalysisBatchRepository batchRepository;
+    private final UserRepository userRepository;
+    private final AnalysisDispatcher dispatcher;
+    private final AnalysisCompletionRegistry completionRegistry;
+    private final AnalysisPipelineMetrics pipelineMetrics;
+    // Uploads to MinIO and event sends block on I/O, so they stay off the Kafka consumer threads
+    private final ExecutorService executor;
+
+    @Value("${app.bulk.max-items:1000}")
+    private int maxItems;
+
+    @Value("${app.bulk.max-entry-kb:5120}")
+    private int maxEntryKb;
+
+    @Value("${app.bulk.upload-parallelism:8}")
+    private int uploadParallelism;
+
+    @Value("${app.bulk.stream-timeout-seconds:1800}")
+    private long streamTimeoutSeconds;
+
+    public BatchAnalysisService(AnalysisService analysisService, AnalysisRepository analysisRepository,
+            AnalysisBatchRepository batchRepository, UserRepository userRepository, AnalysisDispatcher dispatcher,
+            AnalysisCompletionRegistry completionRegistry, AnalysisPipelineMetrics pipelineMetrics,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.executor = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newCachedThreadPool(Thread.ofPlatform().name("batch-", 0).daemon().factory());
+        this.analysisService = analysisService;
+        this.analysisRepository = analysisRepository;
+        this.batchRepository = batchRepository;
+        this.userRepository = userRepository;
+        this.dispatcher = dispatcher;
+        this.completionRegistry = completionRegistry;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    public record BatchSubmission(AnalysisBatch batch, List<String> skipped) {
+    }
+
+    /**
+     * A batch that has been created and whose resumes are being stored; {@code submission}
+     * completes once all of them are queued.
+     */
+    public record BatchUpload(AnalysisBatch batch, CompletableFuture<BatchSubmission> submission) {
+    }
+
+    private record Resume(String fileName, byte[] content, String contentType) {
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Creates a batch from individually uploaded resumes and/or a zip archive of resumes.
+     * Files that are too large or fail to store are skipped and reported by name.
+     *
+     * The batch is created before this returns; its resumes are then read and stored off
+     * the caller's thread. The upload must stay readable until the submission completes;
+     * resumes that can no longer be read are skipped.
+     *
+     * @throws IllegalArgumentException if the upload holds no resumes or more than
+     *         {@code app.bulk.max-items}
+     */
+    public BatchUpload submitBatch(Long userId, String jobDescription,
+            List<MultipartFile> resumes, MultipartFile archive) throws IOException {
+        List<MultipartFile> files = resumes != null
+                ? resumes.stream().filter(file -> !file.isEmpty()).toList()
+                : List.of();
+        boolean hasArchive = archive != null && !archive.isEmpty();
+
+        // Count before creating anything so an oversized batch is rejected as a whole
+        int count = files.size() + (hasArchive ? countArchiveEntries(archive) : 0);
+        if (count == 0) {
+            throw new IllegalArgumentException("No resumes found in the upload.");
+        }
+        if (count > maxItems) {
+            throw new IllegalArgumentException("A batch may contain at most " + maxItems + " resumes.");
+        }
+
+        AnalysisBatch batch = new AnalysisBatch();
+        batch.setUser(userRepository.getReferenceById(userId));
+        batch.setJobDescription(jobDescription);
+        batch.setTotalItems(count);
+        AnalysisBatch created = batchRepository.save(batch);
+
+        MultipartFile zip = hasArchive ? archive : null;
+        return new BatchUpload(created,
+                CompletableFuture.supplyAsync(() -> submitItems(userId, created, count, files, zip), executor));
+    }
+
+    // Reads one resume at a time, each only once an upload slot is free, so at most uploadParallelism
+    // resumes are held in memory however large the upload
+    private BatchSubmission submitItems(Long userId, AnalysisBatch batch, int count, List<MultipartFile> files,
+            MultipartFile archive) {
+        List<String> skipped = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger stored = new AtomicInteger();
+        List<CompletableFuture<Void>> uploads = new ArrayList<>();
+        Semaphore permits = new Semaphore(uploadParallelism);
+        long maxEntryBytes = maxEntryKb * 1024L;
+
+        for (MultipartFile file : files) {
+            String fileName = baseName(file.getOriginalFilename());
+            if (file.getSize() > maxEntryBytes) {
+                skipped.add(fileName);
+                continue;
+            }
+            permits.acquireUninterruptibly();
+            byte[] content;
+            try {
+                content = file.getBytes();
+            } catch (IOException e) {
+                permits.release();
+                System.err.println("Skipping " + fileName + " in batch " + batch.getId() + ": " + e.getMessage());
+                skipped.add(fileName);
+                continue;
+            }
+            uploads.add(submitItem(userId, batch, new Resume(fileName, content, file.getContentType()), permits,
+                    stored, skipped));
+        }
+
+        if (archive != null) {
+            try (ZipInputStream zip = new ZipInputStream(archive.getInputStream())) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    if (!isResumeEntry(entry)) {
+                        continue;
+                    }
+                    String fileName = baseName(entry.getName());
+                    permits.acquireUninterruptibly();
+                    byte[] content;
+                    try {
+                        content = zip.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxEntryBytes + 1));
+                    } catch (IOException e) {
+                        permits.release();
+                        throw e;
+                    }
+                    if (content.length > maxEntryBytes) {
+                        permits.release();
+                        skipped.add(fileName);
+                        continue;
+                    }
+                    Resume resume = new Resume(fileName, content, "application/octet-stream");
+                    uploads.add(submitItem(userId, batch, resume, permits, stored, skipped));
+                }
+            } catch (IOException e) {
+                // What was read before the failure still goes ahead; the archive is reported as skipped
+                System.err.println("Could not read archive of batch " + batch.getId() + ": " + e.getMessage());
+                skipped.add(baseName(archive.getOriginalFilename()));
+            }
+        }
+
+        CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).join();
+
+        AnalysisBatch saved = batch;
+        if (stored.get() != count) {
+            batch.setTotalItems(stored.get());
+            saved = batchRepository.save(batch);
+        }
+        return new BatchSubmission(saved, List.copyOf(skipped));
+    }
+
+    // The caller holds an upload slot for the resume; it is given back once the resume is stored
+    private CompletableFuture<Void> submitItem(Long userId, AnalysisBatch batch, Resume resume, Semaphore permits,
+            AtomicInteger stored, List<String> skipped) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                analysisService.submitBatchItem(userId, batch, resume.fileName(), resume.content(),
+                        resume.contentType());
+                stored.incrementAndGet();
+            } catch (Exception e) {
+                System.err.println("Skipping " + resume.fileName() + " in batch " + batch.getId() + ": " + e.getMessage());
+                skipped.add(resume.fileName());
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    public Optional<AnalysisBatch> findOwnedBatch(Long batchId, Long userId) {
+        return batchRepository.findByIdAndUserId(batchId, userId);
+    }
+
+    /** Progress of the batch and its items, best scores first. */
+    public Map<String, Object> toSnapshot(AnalysisBatch batch) {
+        List<BatchItemSummary> items = analysisRepository.findBatchItemsRanked(batch.getId());
+        Map<String, Object> response = new HashMap<>();
+        response.put("batchId", batch.getId());
+        response.put("cancelled", batch.isCancelled());
+        response.put("createdAt", batch.getCreatedAt());
+        response.put("progress", progress(batch, items));
+        response.put("items", rankedItems(items));
+        return response;
+    }
+
+    /**
+     * Cancels the pending analyses of a batch. Only the batch's own analyses are failed;
+     * identical submissions that were waiting on one of them get a request of their own.
+     * Analyses already sent to the NLP service are left to finish, since their result may
+     * also be serving identical submissions from other users.
+     *
+     * @return the number of analyses cancelled
+     */
+    public int cancel(AnalysisBatch batch) {
+        batch.setCancelled(true);
+        batchRepository.save(batch);
+
+        List<ResumeAnalysis> pending = analysisRepository.findByBatchIdAndStatus(batch.getId(), AnalysisStatus.PENDING);
+        AnalysisDispatcher.Withdrawal withdrawal = dispatcher.withdraw(pending.stream().map(ResumeAnalysis::getId).toList());
+
+        int cancelled = 0;
+        for (ResumeAnalysis analysis : pending) {
+            if (withdrawal.released().contains(analysis.getId())) {
+                continue;
+            }
+            analysis.setJobTitle("Analysis Cancelled");
+            analysisService.cancelAnalysis(analysis);
+            cancelled++;
+        }
+        return cancelled;
+    }
+
+    /**
+     * Streams the batch as server-sent events: a {@code snapshot} of everything finished
+     * so far, then a {@code result} and a {@code progress} event as each remaining analysis
+     * finishes, and a final {@code complete} event with the full ranking.
+     */
+    public SseEmitter stream(AnalysisBatch batch) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutSeconds * 1000);
+        BatchStream stream = new BatchStream(batch, emitter);
+
+        // Register before reading so a result persisted in between can't be missed
+        for (ResumeAnalysis analysis : analysisRepository.findByBatchIdAndStatus(batch.getId(), AnalysisStatus.PENDING)) {
+            stream.watch(analysis.getId());
+        }
+        List<BatchItemSummary> items = analysisRepository.findBatchItemsRanked(batch.getId());
+        stream.start(items);
+
+        emitter.onCompletion(stream::close);
+        emitter.onTimeout(() -> {
+            pipelineMetrics.batchStreamTimedOut();
+            stream.close();
+        });
+        emitter.onError(e -> stream.close());
+        return emitter;
+    }
+
+    /**
+     * One client's event stream. Completions arrive on several threads, so sends and the
+     * running ranking are guarded by the stream's lock. It is a ReentrantLock rather than
+     * a monitor so a virtual thread blocked on the socket inside it does not pin its carrier.
+     */
+    private final class BatchStream {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AnalysisBatch batch;
+        private final SseEmitter emitter;
+        private final Map<Long, CompletableFuture<ResumeAnalysis>> watching = new ConcurrentHashMap<>();
+        private final List<BatchItemSummary> ranked = new ArrayList<>();
+        private final Set<Long> remaining = new HashSet<>();
+        private int failed;
+        private boolean closed;
+
+        BatchStream(AnalysisBatch batch, SseEmitter emitter) {
+            this.batch = batch;
+            this.emitter = emitter;
+        }
+
+        void watch(Long analysisId) {
+            watching.put(analysisId, completionRegistry.watch(analysisId));
+        }
+
+        void start(List<BatchItemSummary> items) {
+            boolean done;
+            lock.lock();
+            try {
+                done = begin(items);
+            } finally {
+                lock.unlock();
+            }
+
+            if (done) {
+                finish();
+            } else {
+                watching.forEach((analysisId, future) -> future.thenAcceptAsync(this::finished, executor));
+            }
+        }
+
+        // Caller holds the lock; returns whether nothing is left to wait for
+        private boolean begin(List<BatchItemSummary> items) {
+            for (BatchItemSummary item : items) {
+                if (item.status() == AnalysisStatus.PENDING) {
+                    remaining.add(item.id());
+                } else if (item.status() == AnalysisStatus.COMPLETED) {
+                    ranked.add(item);
+                } else {
+                    failed++;
+                }
+            }
+            // Watched analyses that finished before the read above are already counted
+            watching.entrySet().removeIf(entry -> {
+                if (!remaining.contains(entry.getKey())) {
+                    completionRegistry.unwatch(entry.getKey(), entry.getValue());
+                    return true;
+                }
+                return false;
+            });
+
+            Map<String, Object> snapshot = new HashMap<>();
+            snapshot.put("batchId", batch.getId());
+            snapshot.put("progress", progress(batch, items));
+            snapshot.put("items", rankedItems(items));
+            send("snapshot", snapshot);
+            return remaining.isEmpty();
+        }
+
+        void finished(ResumeAnalysis analysis) {
+            watching.remove(analysis.getId());
+            boolean done;
+            lock.lock();
+            try {
+                done = record(analysis);
+            } finally {
+                lock.unlock();
+            }
+            if (done) {
+                finish();
+            }
+        }
+
+        // Caller holds the lock; returns whether this was the last analysis waited for
+        private boolean record(ResumeAnalysis analysis) {
+            if (closed || !remaining.remove(analysis.getId())) {
+                return false;
+            }
+
+            BatchItemSummary item = BatchItemSummary.of(analysis);
+            Map<String, Object> event = itemMap(item);
+            if (item.status() == AnalysisStatus.COMPLETED) {
+                int rank = insertRanked(item);
+                event.put("rank", rank + 1);
+                event.put("result", analysisService.toResultMap(analysis));
+            } else {
+                failed++;
+            }
+            send("result", event);
+
+            Map<String, Object> progress = new HashMap<>();
+            progress.put("total", batch.getTotalItems());
+            progress.put("completed", ranked.size());
+            progress.put("failed", failed);
+            progress.put("pending", remaining.size());
+            send("progress", progress);
+            return remaining.isEmpty();
+        }
+
+        // Position among the completed items, ties keeping arrival order
+        private int insertRanked(BatchItemSummary item) {
+            int score = scoreOf(item);
+            int index = 0;
+            while (index < ranked.size() && scoreOf(ranked.get(index)) >= score) {
+                index++;
+            }
+            ranked.add(index, item);
+            return index;
+        }
+
+        // Reads the final ranking outside the lock; only the last remaining analysis gets here
+        private void finish() {
+            List<BatchItemSummary> items = analysisRepository.findBatchItemsRanked(batch.getId());
+            Map<String, Object> complete = new HashMap<>();
+            complete.put("batchId", batch.getId());
+            complete.put("progress", progress(batch, items));
+            complete.put("items", rankedItems(items));
+
+            lock.lock();
+            try {
+                send("complete", complete);
+                closed = true;
+            } finally {
+                lock.unlock();
+            }
+            emitter.complete();
+        }
+
+        private void send(String name, Object data) {
+            if (closed) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data));
+            } catch (Exception e) {
+                // Client went away; the emitter's error callback cleans up
+                closed = true;
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+            } finally {
+                lock.unlock();
+            }
+            watching.forEach(completionRegistry::unwatch);
+            watching.clear();
+        }
+    }
+
+    private static Map<String, Object> progress(AnalysisBatch batch, List<BatchItemSummary> items) {
+        Map<String, Integer> byStatus = new HashMap<>();
+        for (BatchItemSummary item : items) {
+            byStatus.merge(item.status().name(), 1, Integer::sum);
+        }
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("total", batch.getTotalItems());
+        progress.put("completed", byStatus.getOrDefault(AnalysisStatus.COMPLETED.name(), 0));
+        progress.put("failed", byStatus.getOrDefault(AnalysisStatus.FAILED.name(), 0));
+        progress.put("pending", byStatus.getOrDefault(AnalysisStatus.PENDING.name(), 0));
+        return progress;
+    }
+
+    // Items arrive ordered by the query; only completed ones get a rank
+    private static List<Map<String, Object>> rankedItems(List<BatchItemSummary> items) {
+        List<Map<String, Object>> result = new ArrayList<>(items.size());
+        int rank = 0;
+        for (BatchItemSummary item : items) {
+            Map<String, Object> map = itemMap(item);
+            map.put("rank", item.status() == AnalysisStatus.COMPLETED ? ++rank : null);
+            result.add(map);
+        }
+        return result;
+    }
+
+    private static Map<String, Object> itemMap(BatchItemSummary item) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("analysisId", item.id());
+        map.put("fileName", item.fileName());
+        map.put("jobTitle", item.jobTitle());
+        map.put("status", item.status().name());
+        map.put("suitabilityScore", item.suitabilityScore());
+        return map;
+    }
+
+    private static int scoreOf(BatchItemSummary item) {
+        return item.suitabilityScore() != null ? item.suitabilityScore() : 0;
+    }
+
+    private int countArchiveEntries(MultipartFile archive) throws IOException {
+        int count = 0;
+        try (InputStream in = archive.getInputStream(); ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (isResumeEntry(entry)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Skip folders and the metadata archivers add (macOS resource forks, dotfiles)
+    private static boolean isResumeEntry(ZipEntry entry) {
+        String name = entry.getName();
+        String base = baseName(name);
+        return !entry.isDirectory() && !name.startsWith("__MACOSX/") && !base.isEmpty() && !base.startsWith(".");
+    }
+
+    private static String baseName(String path) {
+        if (path == null) {
+            return "";
+        }
+        String normalized = path.replace('\\', '/');
+        return normalized.substring(normalized.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.resumeanalyzer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps large analysis messages off the Kafka topics.
+ *
+ * A request or reply whose JSON exceeds {@code app.claim-check.threshold-kb} is
+ * gzipped into MinIO and replaced on the topic by a small envelope holding the
+ * object reference and the SHA-256 of the original JSON. The NLP service applies
+ * the same rule to its replies, so both directions can be checked in and out here.
+ */
+@Service
+public class ClaimCheckService {
+
+    static final String CONTENT_TYPE = "application/gzip";
+
+    private final MinioService minioService;
+    private final ObjectMapper objectMapper;
+
+    private final Counter requestsCheckedIn;
+    private final Counter requestBytesSaved;
+    private final Counter responsesCheckedOut;
+    private final Counter responseBytesSaved;
+
+    @Value("${app.claim-check.threshold-kb:64}")
+    private int thresholdKb;
+
+    public ClaimCheckService(MinioService minioService, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.minioService = minioService;
+        this.objectMapper = objectMapper;
+        this.requestsCheckedIn = Counter.builder("kafka.claim-check.payloads").tag("direction", "request")
+                .register(meterRegistry);
+        this.requestBytesSaved = Counter.builder("kafka.claim-check.bytes-saved").baseUnit("bytes")
+                .tag("direction", "request").register(meterRegistry);
+        this.responsesCheckedOut = Counter.builder("kafka.claim-check.payloads").tag("direction", "response")
+                .register(meterRegistry);
+        this.responseBytesSaved = Counter.builder("kafka.claim-check.bytes-saved").baseUnit("bytes")
+                .tag("direction", "response").register(meterRegistry);
+    }
+
+    /** Reference to a payload parked in MinIO, as carried in the Kafka envelope. */
+    public record ClaimCheck(String bucket, String object, String sha256, long size, String encoding) {
+    }
+
+    /**
+     * Returns {@code message} unchanged if it is under the threshold, otherwise stores it
+     * and returns the envelope to publish instead.
+     */
+    public String checkInRequest(Long analysisId, String message) {
+        byte[] raw = message.getBytes(StandardCharsets.UTF_8);
+        if (raw.length <= thresholdKb * 1024L) {
+            return message;
+        }
+
+        String sha256 = HexFormat.of().formatHex(sha256().digest(raw));
+        String objectName = "claims/requests/" + analysisId + "-" + sha256.substring(0, 16) + ".json.gz";
+        minioService.putBytes(objectName, gzip(raw), CONTENT_TYPE);
+
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("candidate_id", analysisId);
+        envelope.put("claim_check",
+                new ClaimCheck(minioService.getBucketName(), objectName, sha256, raw.length, "gzip"));
+        String envelopeJson = writeJson(envelope);
+
+        requestsCheckedIn.increment();
+        requestBytesSaved.increment(raw.length - envelopeJson.getBytes(StandardCharsets.UTF_8).length);
+        return envelopeJson;
+    }
+
+    /**
+     * Fetches and verifies the payload a reply envelope points to.
+     *
+     * @param envelopeLength size of the envelope as received, to account the bytes saved
+     */
+    public String checkOutResponse(ClaimCheck claimCheck, int envelopeLength) {
+        byte[] stored = minioService.getBytes(claimCheck.bucket(), claimCheck.object());
+        byte[] raw = "gzip".equals(claimCheck.encoding()) ? gunzip(stored) : stored;
+
+        String sha256 = HexFormat.of().formatHex(sha256().digest(raw));
+        if (!sha256.equals(claimCheck.sha256())) {
+            throw new IllegalStateException("Claim-check payload " + claimCheck.object() + " does not match its hash");
+        }
+
+        responsesCheckedOut.increment();
+        responseBytesSaved.increment(Math.max(0, raw.length - envelopeLength));
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    /** Deletes a payload once it has been consumed; failures only leave garbage behind. */
+    public void release(ClaimCheck claimCheck) {
+        try {
+            minioService.removeObject(claimCheck.bucket(), claimCheck.object());
+        } catch (Exception e) {
+            System.err.println("Failed to remove claim-check object " + claimCheck.object() + ": " + e.getMessage());
+        }
+    }
+
+    private String writeJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] compressed) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.resumeanalyzer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Scores how well a resume matches a job description from the skills both mention,
+ * in milliseconds and without the NLP service, so a pending analysis can show a
+ * provisional score until the LLM result arrives.
+ *
+ * The skills come from {@code skill-vocabulary.txt}. Every skill the job description
+ * names is a query term, weighted by how often it is named; its BM25 term frequency in
+ * the resume, normalized by resume length, counts towards the score. A skill the job
+ * description names is fully matched by one mention in a resume of average length.
+ */
+@Component
+public class KeywordMatcher {
+
+    private static final String VOCABULARY = "skill-vocabulary.txt";
+
+    // BM25 term-frequency saturation and length normalization
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int MAX_TERMS = 20;
+
+    // Phrases as a trie of their words: the first word of a phrase, then each following word, leads to
+    // the node holding the skill the phrase names
+    private final PhraseNode phrases = new PhraseNode();
+    // Every word of every phrase, so compound tokens like "ci/cd" are kept whole only when they mean something
+    private final Set<String> words = new HashSet<>();
+
+    @Value("${app.provisional.average-resume-words:600}")
+    private double averageResumeWords;
+
+    @Value("${app.provisional.max-chars:100000}")
+    private int maxChars;
+
+    public record Match(int score, List<String> terms) {
+    }
+
+    private static final class PhraseNode {
+        private final Map<String, PhraseNode> next = new HashMap<>();
+        private String skill;
+    }
+
+    public KeywordMatcher() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource(VOCABULARY).getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int alias = line.indexOf(" = ");
+                String phrase = alias >= 0 ? line.substring(0, alias) : line;
+                String skill = alias >= 0 ? line.substring(alias + 3).strip() : line;
+                addPhrase(phrase.strip().toLowerCase(Locale.ROOT), skill.toLowerCase(Locale.ROOT));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load " + VOCABULARY, e);
+        }
+    }
+
+    private void addPhrase(String phrase, String skill) {
+        PhraseNode node = phrases;
+        for (String part : phrase.split("\\s+")) {
+            node = node.next.computeIfAbsent(part, word -> new PhraseNode());
+            words.add(part);
+        }
+        node.skill = skill;
+    }
+
+    /**
+     * The provisional score, 0-100, and the skills found in both texts in the order the
+     * job description names them; null when the job description names no known skill.
+     */
+    public Match match(String resumeText, String jobDescription) {
+        Map<String, Integer> wanted = new LinkedHashMap<>();
+        countSkills(jobDescription, wanted);
+        if (wanted.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Integer> found = new HashMap<>();
+        int resumeWords = countSkills(resumeText, found);
+        double lengthNorm = 1 - B + B * resumeWords / averageResumeWords;
+
+        double score = 0;
+        double maxScore = 0;
+        List<String> terms = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : wanted.entrySet()) {
+            double weight = 1 + Math.log(entry.getValue());
+            maxScore += weight;
+
+            int tf = found.getOrDefault(entry.getKey(), 0);
+            if (tf == 0) {
+                continue;
+            }
+            // Exactly 1 for one mention at average length; more mentions or a shorter resume can't exceed it
+            double saturated = tf * (K1 + 1) / (tf + K1 * lengthNorm);
+            score += weight * Math.min(1, saturated);
+            if (terms.size() < MAX_TERMS) {
+                terms.add(entry.getKey());
+            }
+        }
+        return new Match((int) Math.round(100 * score / maxScore), terms);
+    }
+
+    // Adds the skills named in the text to counts and returns the number of words it has
+    private int countSkills(String text, Map<String, Integer> counts) {
+        List<String> tokens = tokenize(text);
+        for (int i = 0; i < tokens.size(); i++) {
+            // Longest phrase first, so "spring boot" isn't also counted as "spring"
+            String skill = null;
+            int length = 0;
+            PhraseNode node = phrases;
+            for (int j = i; j < tokens.size(); j++) {
+                node = node.next.get(tokens.get(j));
+                if (node == null) {
+                    break;
+                }
+                if (node.skill != null) {
+                    skill = node.skill;
+                    length = j - i + 1;
+                }
+            }
+            if (skill != null) {
+                counts.merge(skill, 1, Integer::sum);
+                i += length - 1;
+            }
+        }
+        return tokens.size();
+    }
+
+    // Lower-cased runs of letters, digits and + # . / -, so c++, c#, node.js and ci/cd survive.
+    // A run that isn't a known word is split at . / - into its parts.
+    private List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+
+        int length = Math.min(text.length(), maxChars);
+        StringBuilder run = new StringBuilder();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? Character.toLowerCase(text.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c) || c == '+' || c == '#' || c == '.' || c == '/' || c == '-') {
+                run.append(c);
+            } else if (!run.isEmpty()) {
+                addToken(run, tokens);
+                run.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    private void addToken(StringBuilder run, List<String> tokens) {
+        int end = run.length();
+        while (end > 0 && isSeparator(run.charAt(end - 1))) {
+            end--;
+        }
+        int start = 0;
+        while (start < end && run.charAt(start) != '.' && isSeparator(run.charAt(start))) {
+            start++;
+        }
+        if (start == end) {
+            return;
+        }
+
+        String token = run.substring(start, end);
+        if (words.contains(token)) {
+            tokens.add(token);
+            return;
+        }
+        int partStart = 0;
+        for (int i = 0; i <= token.length(); i++) {
+            if (i == token.length() || isSeparator(token.charAt(i))) {
+                if (i > partStart) {
+                    tokens.add(token.substring(partStart, i));
+                }
+                partStart = i + 1;
+            }
+        }
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '.' || c == '/' || c == '-';
+    }
+}
@@ -1,65 +1,253 @@
 package com.example.resumeanalyzer.service;
 
+import com.example.resumeanalyzer.util.LruCache;
+import io.minio.BucketExistsArgs;
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
+import io.minio.GetObjectArgs;
 import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MakeBucketArgs;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import io.minio.StatObjectArgs;
+import io.minio.errors.ErrorResponseException;
 import io.minio.http.Method;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Locale;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 @Service
 public class MinioService {
 
+    private static final int PRESIGNED_URL_EXPIRY_SECONDS = 3600;
+
+    // Where large uploads land while they are hashed, before they are copied to their content-addressed name
+    private static final String STAGING_PREFIX = "staging/";
+
     private final MinioClient minioClient;
+    private final LruCache<String, PresignedUrl> presignedUrls;
 
     @Value("${minio.bucket-name}")
     private String bucketName;
 
-    public MinioService(MinioClient minioClient) {
+    @Value("${minio.presigned-url.refresh-margin-seconds:300}")
+    private long refreshMarginSeconds;
+
+    @Value("${spring.servlet.multipart.file-size-threshold:0B}")
+    private DataSize multipartThreshold;
+
+    // Set once the bucket is known to exist; checked at startup and retried on upload if MinIO wasn't up yet
+    private volatile boolean bucketReady;
+
+    public MinioService(MinioClient minioClient,
+            @Value("${minio.presigned-url.cache-size:10000}") int presignedUrlCacheSize) {
         this.minioClient = minioClient;
+        this.presignedUrls = new LruCache<>(presignedUrlCacheSize);
+    }
+
+    /**
+     * A stored upload. Objects are named after the SHA-256 of their content, so the
+     * same file uploaded many times is stored once.
+     */
+    public record StoredObject(String objectName, String sha256, long size) {
+    }
+
+    private record PresignedUrl(String url, long expiresAtMillis) {
     }
 
-    public String uploadFile(MultipartFile file) {
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureBucketOnStartup() {
         try {
-            // Check if bucket exists, create if not
-            boolean found = minioClient.bucketExists(io.minio.BucketExistsArgs.builder().bucket(bucketName).build());
-            if (!found) {
-                minioClient.makeBucket(io.minio.MakeBucketArgs.builder().bucket(bucketName).build());
+            ensureBucket();
+        } catch (Exception e) {
+            System.err.println("MinIO bucket check failed at startup, will retry on first upload: " + e.getMessage());
+        }
+    }
+
+    public StoredObject uploadFile(MultipartFile file) {
+        try {
+            // Parts up to the multipart threshold are held in memory: hashing them first is free and
+            // lets duplicates skip the upload entirely
+            if (file.getSize() <= multipartThreshold.toBytes()) {
+                return uploadBytes(file.getBytes(), file.getOriginalFilename(), file.getContentType());
+            }
+            if (!bucketReady) {
+                ensureBucket();
             }
 
-            String fileName = UUID.randomUUID() + "_" + file.getOriginalFilename();
-            InputStream inputStream = file.getInputStream();
+            // Larger parts are spooled to disk, so they are hashed while they stream to a staging key
+            // and read only once, then copied to their content-addressed name inside MinIO
+            String stagingName = STAGING_PREFIX + UUID.randomUUID();
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+                minioClient.putObject(
+                        PutObjectArgs.builder()
+                                .bucket(bucketName)
+                                .object(stagingName)
+                                .stream(inputStream, file.getSize(), -1)
+                                .contentType(file.getContentType())
+                                .build());
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            String objectName = sha256 + extensionOf(file.getOriginalFilename());
 
-            minioClient.putObject(
-                    PutObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(fileName)
-                            .stream(inputStream, file.getSize(), -1)
-                            .contentType(file.getContentType())
-                            .build());
+            try {
+                if (!objectExists(objectName)) {
+                    minioClient.copyObject(
+                            CopyObjectArgs.builder()
+                                    .bucket(bucketName)
+                                    .object(objectName)
+                                    .source(CopySource.builder().bucket(bucketName).object(stagingName).build())
+                                    .build());
+                }
+            } finally {
+                try {
+                    removeObject(bucketName, stagingName);
+                } catch (RuntimeException e) {
+                    System.err.println("Could not remove staged upload " + stagingName + ": " + e.getMessage());
+                }
+            }
+
+            return new StoredObject(objectName, sha256, file.getSize());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error uploading file to MinIO: " + e.getMessage(), e);
+        }
+    }
 
-            return fileName;
+    /**
+     * Same as {@link #uploadFile} for content already in memory, such as an entry read
+     * from an uploaded archive.
+     */
+    public StoredObject uploadBytes(byte[] content, String originalFilename, String contentType) {
+        try {
+            String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+            String objectName = sha256 + extensionOf(originalFilename);
+            if (!bucketReady) {
+                ensureBucket();
+            }
+            if (!objectExists(objectName)) {
+                putBytes(objectName, content, contentType);
+            }
+            return new StoredObject(objectName, sha256, content.length);
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Error uploading file to MinIO: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Returns a presigned GET URL for the object. URLs are cached per object and
+     * re-signed once they get within {@code minio.presigned-url.refresh-margin-seconds}
+     * of expiry, so callers always receive a URL that stays valid for a while.
+     */
     public String getFileUrl(String fileName) {
+        long now = System.currentTimeMillis();
+        PresignedUrl cached = presignedUrls.get(fileName);
+        if (cached != null && cached.expiresAtMillis() - now > refreshMarginSeconds * 1000) {
+            return cached.url();
+        }
+
         try {
-            return minioClient.getPresignedObjectUrl(
+            String url = minioClient.getPresignedObjectUrl(
                     GetPresignedObjectUrlArgs.builder()
                             .method(Method.GET)
                             .bucket(bucketName)
                             .object(fileName)
-                            .expiry(1, TimeUnit.HOURS)
+                            .expiry(PRESIGNED_URL_EXPIRY_SECONDS, TimeUnit.SECONDS)
                             .build());
+            presignedUrls.put(fileName, new PresignedUrl(url, now + PRESIGNED_URL_EXPIRY_SECONDS * 1000L));
+            return url;
         } catch (Exception e) {
             throw new RuntimeException("Error getting file URL from MinIO", e);
         }
     }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public void putBytes(String objectName, byte[] content, String contentType) {
+        try {
+            if (!bucketReady) {
+                ensureBucket();
+            }
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .stream(new ByteArrayInputStream(content), content.length, -1)
+                            .contentType(contentType)
+                            .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Error storing object in MinIO: " + e.getMessage(), e);
+        }
+    }
+
+    public byte[] getBytes(String bucket, String objectName) {
+        try (InputStream in = minioClient.getObject(GetObjectArgs.builder().bucket(bucket).object(objectName).build())) {
+            return in.readAllBytes();
+        } catch (Exception e) {
+            throw new RuntimeException("Error reading object from MinIO: " + e.getMessage(), e);
+        }
+    }
+
+    public void removeObject(String bucket, String objectName) {
+        try {
+            minioClient.removeObject(RemoveObjectArgs.builder().bucket(bucket).object(objectName).build());
+        } catch (Exception e) {
+            throw new RuntimeException("Error removing object from MinIO: " + e.getMessage(), e);
+        }
+    }
+
+    private synchronized void ensureBucket() throws Exception {
+        if (bucketReady) {
+            return;
+        }
+        boolean found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
+        if (!found) {
+            minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
+        }
+        bucketReady = true;
+    }
+
+    private boolean objectExists(String objectName) throws Exception {
+        try {
+            minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(objectName).build());
+            return true;
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private static String extensionOf(String originalFilename) {
+        if (originalFilename == null) {
+            return "";
+        }
+        int dot = originalFilename.lastIndexOf('.');
+        if (dot < 0 || dot == originalFilename.length() - 1) {
+            return "";
+        }
+        String extension = originalFilename.substring(dot + 1).toLowerCase(Locale.ROOT);
+        // The NLP service picks its extractor from the extension, so keep it but only if it looks sane
+        return extension.matches("[a-z0-9]{1,10}") ? "." + extension : "";
+    }
 }
@@ -1,114 +1,266 @@
 package com.example.resumeanalyzer.service;
 
+import com.example.resumeanalyzer.model.AnalysisResult;
+import com.example.resumeanalyzer.model.AnalysisStatus;
 import com.example.resumeanalyzer.model.ResumeAnalysis;
 import com.example.resumeanalyzer.repository.AnalysisRepository;
+import com.example.resumeanalyzer.util.LruCache;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Applies analysis replies from the NLP service.
+ *
+ * Kafka delivers at least once, and a re-published request can be answered after an
+ * earlier answer was already applied. The first reply for a pending analysis wins and
+ * every later one is dropped: ids completed recently are remembered in a bounded
+ * filter, so redeliveries are dropped before MinIO or the database are touched, and
+ * results are written with a versioned update, so two writers racing on one row
+ * can't both succeed.
+ */
 @Service
 public class ResumeAnalysisConsumer {
 
-    private final ObjectMapper objectMapper;
+    private final ObjectReader replyReader;
     private final AnalysisRepository analysisRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AnalysisCompletionBroadcaster completionBroadcaster;
+    private final AnalysisResultCache resultCache;
+    private final AdminStatsTracker statsTracker;
+    private final ClaimCheckService claimCheckService;
+    private final AnalysisPipelineMetrics pipelineMetrics;
+    private final AnalysisDispatcher dispatcher;
+    // Analysis id -> attempt whose reply settled it (0 when unknown)
+    private final LruCache<Long, Integer> recentlySettled;
 
-    public ResumeAnalysisConsumer(ObjectMapper objectMapper, AnalysisRepository analysisRepository) {
-        this.objectMapper = objectMapper;
+    public ResumeAnalysisConsumer(ObjectMapper objectMapper, AnalysisRepository analysisRepository,
+            TransactionTemplate transactionTemplate, AnalysisCompletionBroadcaster completionBroadcaster,
+            AnalysisResultCache resultCache, AdminStatsTracker statsTracker, ClaimCheckService claimCheckService,
+            AnalysisPipelineMetrics pipelineMetrics, AnalysisDispatcher dispatcher,
+            @Value("${app.replies.dedup-capacity:10000}") int dedupCapacity) {
+        this.replyReader = objectMapper.readerFor(AnalysisReply.class);
         this.analysisRepository = analysisRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.completionBroadcaster = completionBroadcaster;
+        this.resultCache = resultCache;
+        this.statsTracker = statsTracker;
+        this.claimCheckService = claimCheckService;
+        this.pipelineMetrics = pipelineMetrics;
+        this.dispatcher = dispatcher;
+        this.recentlySettled = new LruCache<>(dedupCapacity);
     }
 
-    @KafkaListener(topics = "${kafka.topic.response}", groupId = "resume-group")
-    public void consumeAnalysisResult(String message) {
-        try {
-            JsonNode rootNode = objectMapper.readTree(message);
-            long candidateId = rootNode.get("candidate_id").asLong();
-            JsonNode analysisData = rootNode.get("analysis");
+    // Reply from the NLP service, bound directly from the token stream without building a tree for the message.
+    // Large replies arrive as a claim_check envelope instead of an inline analysis. The attempt is echoed
+    // from the request; NLP service versions before it was sent leave it null.
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record AnalysisReply(@JsonProperty("candidate_id") Long candidateId, Integer attempt, AnalysisResult analysis,
+            @JsonProperty("claim_check") ClaimCheckService.ClaimCheck claimCheck, Timings timings) {
+    }
 
-            System.out.println("Received analysis for candidate " + candidateId);
+    // Measured by the NLP service: time the request waited on its topic, and time spent analysing it
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Timings(@JsonProperty("queued_ms") Long queuedMs, @JsonProperty("processing_ms") Long processingMs) {
+    }
 
-            Optional<ResumeAnalysis> analysisOpt = analysisRepository.findById(candidateId);
-            if (analysisOpt.isPresent()) {
-                ResumeAnalysis analysis = analysisOpt.get();
+    // What a batch of replies did: the analyses they completed, and the ones found already settled
+    private record Outcome(List<ResumeAnalysis> completed, List<Long> alreadySettled, int unknown) {
+    }
 
-                // Update fields
-                if (analysisData.has("compatibility_score")) {
-                    analysis.setSuitabilityScore(analysisData.get("compatibility_score").asInt());
-                }
+    @KafkaListener(topics = "${kafka.topic.response}", groupId = "resume-group",
+            containerFactory = "batchListenerContainerFactory")
+    public void consumeAnalysisResults(List<ConsumerRecord<String, String>> records) {
+        Map<Long, AnalysisReply> replies = new LinkedHashMap<>();
+        List<ClaimCheckService.ClaimCheck> claimChecks = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (ConsumerRecord<String, String> record : records) {
+            String message = record.value();
+            pipelineMetrics.record(AnalysisPipelineMetrics.Stage.REPLY_QUEUE, Duration.ofMillis(now - record.timestamp()));
+            try {
+                AnalysisReply reply = replyReader.readValue(message);
+                ClaimCheckService.ClaimCheck claimCheck = reply.claimCheck();
 
-                if (analysisData.has("summary")) {
-                    analysis.setSummary(analysisData.get("summary").asText());
+                // The envelope carries the id, so a redelivered claim check is dropped without fetching it
+                if (reply.candidateId() != null && settledRecently(reply, claimCheck)) {
+                    continue;
                 }
 
-                if (analysisData.has("matched_skills")) {
-                    analysis.setMatchedSkills(analysisData.get("matched_skills").toString());
+                if (reply.analysis() == null && claimCheck != null) {
+                    int envelopeLength = message.getBytes(StandardCharsets.UTF_8).length;
+                    reply = replyReader.readValue(claimCheckService.checkOutResponse(claimCheck, envelopeLength));
+                    claimChecks.add(claimCheck);
                 }
-
-                if (analysisData.has("missing_skills")) {
-                    analysis.setMissingSkills(analysisData.get("missing_skills").toString());
+                if (reply.candidateId() == null || reply.analysis() == null) {
+                    System.err.println("Ignoring analysis reply without candidate_id or analysis");
+                    pipelineMetrics.malformedReply();
+                    continue;
                 }
-
-                if (analysisData.has("recommendations")) {
-                    // Check if it's an array and convert to text, or if it's a string
-                    JsonNode recNode = analysisData.get("recommendations");
-                    if (recNode.isArray()) {
-                        // Join with newlines or keep as JSON. Frontend expects string or we can
-                        // convert.
-                        // But for now let's store as JSON string representation to be safe,
-                        // or better yet, join them for the 'recommendation' field if Frontend expects a
-                        // single string?
-                        // Frontend App.jsx uses `result.recommendation` (singular) but renders it as
-                        // text.
-                        // Python returns `recommendations` (plural list).
-                        // Let's join them.
-                        StringBuilder sb = new StringBuilder();
-                        for (JsonNode n : recNode) {
-                            if (sb.length() > 0)
-                                sb.append("\n\n");
-                            sb.append(n.asText());
-                        }
-                        analysis.setRecommendation(sb.toString());
-                    } else {
-                        analysis.setRecommendation(recNode.asText());
-                    }
+                recordTimings(reply.timings());
+                if (replies.putIfAbsent(reply.candidateId(), reply) != null) {
+                    dropped(reply, replies.get(reply.candidateId()).attempt());
                 }
+            } catch (JsonProcessingException e) {
+                // MinIO failures are not caught here, so the batch is retried rather than the result dropped
+                System.err.println("Ignoring malformed analysis reply: " + e.getMessage());
+                pipelineMetrics.malformedReply();
+            }
+        }
+        if (replies.isEmpty()) {
+            return;
+        }
 
-                // We could also store detailed recommendations if the model had a field for it.
-                // For now, we update the existing fields matching the model.
-                // Ideally, change jobTitle to status or add a status field, but I'll set
-                // jobTitle to "Completed" or similar if implied?
-                // The Python service returns "summary", "matched_skills", etc.
-                // Currently ResumeAnalysis entity is limited. I'll just update score and maybe
-                // prepend summary to JobTitle or Description?
-                // Better to leave jobTitle as is if provided, or update if it was "Pending
-                // Analysis".
-
-                if ("Pending Analysis".equals(analysis.getJobTitle())) {
-                    analysis.setJobTitle("Analysis Completed");
-                }
+        System.out.println("Received " + replies.size() + " analysis replies");
+
+        Timer.Sample persistSample = Timer.start();
+        Outcome outcome;
+        try {
+            outcome = settle(replies.keySet(), replies);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // A row changed between read and write, e.g. failed by the reaper; settle the batch one reply at a time
+            outcome = settleIndividually(replies);
+        }
+        persistSample.stop(pipelineMetrics.timer(AnalysisPipelineMetrics.Stage.CONSUME));
+
+        // Parked payloads are only needed until their results are committed
+        claimChecks.forEach(claimCheckService::release);
+
+        if (outcome.unknown() > 0) {
+            System.err.println(outcome.unknown() + " analysis records in the batch were not found");
+            pipelineMetrics.unknownReplies(outcome.unknown());
+        }
+
+        for (Long analysisId : outcome.alreadySettled()) {
+            AnalysisReply reply = replies.get(analysisId);
+            recentlySettled.put(analysisId, 0);
+            dropped(reply, null);
+        }
+
+        for (ResumeAnalysis analysis : outcome.completed()) {
+            Integer attempt = replies.get(analysis.getId()).attempt();
+            recentlySettled.put(analysis.getId(), attempt != null ? attempt : 0);
+
+            // Wake up clients long-polling the status of this analysis, on whichever instance they are
+            completionBroadcaster.analysisFinished(analysis);
+            statsTracker.analysisCompleted(analysis.getSuitabilityScore());
+            if (analysis.getCreatedAt() != null) {
+                pipelineMetrics.record(AnalysisPipelineMetrics.Stage.END_TO_END,
+                        Duration.between(analysis.getCreatedAt(), LocalDateTime.now()));
+            }
 
-                // If we want to store the full JSON result, we should add a field to
-                // ResumeAnalysis.
-                // For this MVP step, updating the score is the key proof of concept.
+            // Identical submissions that were coalesced onto this one get the same result
+            for (ResumeAnalysis follower : resultCache.completed(analysis)) {
+                completionBroadcaster.analysisFinished(follower);
+                statsTracker.analysisCompleted(follower.getSuitabilityScore());
+            }
+        }
+        System.out.println("Updated " + outcome.completed().size() + " analysis records");
+    }
 
-                analysisRepository.save(analysis);
+    private boolean settledRecently(AnalysisReply reply, ClaimCheckService.ClaimCheck claimCheck) {
+        Integer settledBy = recentlySettled.get(reply.candidateId());
+        if (settledBy == null) {
+            return false;
+        }
+        if (claimCheck != null) {
+            claimCheckService.release(claimCheck); // already gone for a redelivery; left behind for a late attempt
+        }
+        dropped(reply, settledBy);
+        return true;
+    }
 
-                // Complete the Future if AnalysisService is waiting
-                if (AnalysisService.pendingAnalyses.containsKey(candidateId)) {
-                    AnalysisService.pendingAnalyses.get(candidateId).complete(analysis);
-                    AnalysisService.pendingAnalyses.remove(candidateId);
+    // A reply that arrived after its analysis was settled changes nothing, but the request it answers
+    // may still hold a dispatcher slot on this instance
+    private void dropped(AnalysisReply reply, Integer settledBy) {
+        boolean redelivery = settledBy != null && settledBy != 0 && settledBy.equals(reply.attempt());
+        if (redelivery || reply.attempt() == null) {
+            pipelineMetrics.duplicateReply();
+        } else {
+            pipelineMetrics.supersededReply();
+        }
+        dispatcher.finished(reply.candidateId());
+    }
+
+    // One IN query for the batch, then one batched, versioned UPDATE on commit. Only pending
+    // analyses take a result; a row whose version moved since it was read fails the whole batch.
+    private Outcome settle(Collection<Long> analysisIds, Map<Long, AnalysisReply> replies) {
+        return transactionTemplate.execute(status -> {
+            List<ResumeAnalysis> analyses = analysisRepository.findAllById(analysisIds);
+            List<ResumeAnalysis> completed = new ArrayList<>();
+            List<Long> alreadySettled = new ArrayList<>();
+            for (ResumeAnalysis analysis : analyses) {
+                if (analysis.getStatus() != AnalysisStatus.PENDING) {
+                    alreadySettled.add(analysis.getId());
+                    continue;
                 }
+                apply(analysis, replies.get(analysis.getId()).analysis());
+                completed.add(analysis);
+            }
+            analysisRepository.saveAll(completed);
+            return new Outcome(completed, alreadySettled, analysisIds.size() - analyses.size());
+        });
+    }
 
-                System.out.println("Updated analysis record for ID: " + candidateId);
-            } else {
-                System.err.println("Analysis record not found for ID: " + candidateId);
+    private Outcome settleIndividually(Map<Long, AnalysisReply> replies) {
+        List<ResumeAnalysis> completed = new ArrayList<>();
+        List<Long> alreadySettled = new ArrayList<>();
+        int unknown = 0;
+        for (Long analysisId : replies.keySet()) {
+            try {
+                Outcome outcome = settle(Set.of(analysisId), replies);
+                completed.addAll(outcome.completed());
+                alreadySettled.addAll(outcome.alreadySettled());
+                unknown += outcome.unknown();
+            } catch (ObjectOptimisticLockingFailureException e) {
+                // Settled by the other writer in between; its outcome stands
+                alreadySettled.add(analysisId);
             }
+        }
+        return new Outcome(completed, alreadySettled, unknown);
+    }
+
+    private void recordTimings(Timings timings) {
+        if (timings == null) {
+            return; // NLP service versions before timings were reported
+        }
+        if (timings.queuedMs() != null) {
+            pipelineMetrics.record(AnalysisPipelineMetrics.Stage.REQUEST_QUEUE, Duration.ofMillis(timings.queuedMs()));
+        }
+        if (timings.processingMs() != null) {
+            pipelineMetrics.record(AnalysisPipelineMetrics.Stage.NLP, Duration.ofMillis(timings.processingMs()));
+        }
+    }
+
+    static void apply(ResumeAnalysis analysis, AnalysisResult result) {
+        analysis.setResult(result);
+        if (result.compatibilityScore() != null) {
+            analysis.setSuitabilityScore(result.compatibilityScore());
+        }
 
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
+        if ("Pending Analysis".equals(analysis.getJobTitle())) {
+            analysis.setJobTitle("Analysis Completed");
         }
+        analysis.setStatus(AnalysisStatus.COMPLETED);
+        analysis.setProvisionalScore(null);
+        analysis.setProvisionalTerms(null);
     }
 }
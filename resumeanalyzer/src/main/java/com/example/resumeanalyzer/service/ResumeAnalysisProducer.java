@@ -1,39 +1,69 @@
 package com.example.resumeanalyzer.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ResumeAnalysisProducer {
 
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
+    private final ClaimCheckService claimCheckService;
+    private final AnalysisPipelineMetrics pipelineMetrics;
 
     @Value("${kafka.topic.request}")
     private String requestTopic;
 
-    public ResumeAnalysisProducer(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper) {
+    public ResumeAnalysisProducer(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper,
+            ClaimCheckService claimCheckService, AnalysisPipelineMetrics pipelineMetrics) {
         this.kafkaTemplate = kafkaTemplate;
         this.objectMapper = objectMapper;
+        this.claimCheckService = claimCheckService;
+        this.pipelineMetrics = pipelineMetrics;
     }
 
-    public void sendAnalysisRequest(Long candidateId, String resumeText, String jobDescription) {
+    /**
+     * Publishes the request keyed by analysis id, so records spread deterministically
+     * across partitions and the NLP workers scale with the partition count. The attempt
+     * number is echoed in the reply, telling apart answers to re-published requests.
+     *
+     * @return completes when the broker has acknowledged the record, or exceptionally if
+     *         it could not be serialized or delivered
+     */
+    public CompletableFuture<SendResult<String, String>> sendAnalysisRequest(Long analysisId, int attempt,
+            String resumeText, String jobDescription) {
         try {
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("candidate_id", candidateId);
-            payload.put("resume_text", resumeText);
-            payload.put("job_description", jobDescription);
-
-            String message = objectMapper.writeValueAsString(payload);
-            kafkaTemplate.send(requestTopic, message);
+            // Large text resumes and job descriptions travel through MinIO instead of the topic
+            String message = claimCheckService.checkInRequest(analysisId,
+                    requestPayload(analysisId, attempt, resumeText, jobDescription));
+            Timer.Sample sample = Timer.start();
+            return kafkaTemplate.send(requestTopic, String.valueOf(analysisId), message)
+                    .whenComplete((result, e) -> {
+                        if (e == null) {
+                            sample.stop(pipelineMetrics.timer(AnalysisPipelineMetrics.Stage.PUBLISH));
+                        }
+                    });
         } catch (Exception e) {
-            e.printStackTrace();
-            // Handle error (log it, etc)
+            return CompletableFuture.failedFuture(e);
         }
     }
+
+    String requestPayload(Long analysisId, int attempt, String resumeText, String jobDescription)
+            throws JsonProcessingException {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("candidate_id", analysisId);
+        payload.put("attempt", attempt);
+        payload.put("resume_text", resumeText);
+        payload.put("job_description", jobDescription);
+        return objectMapper.writeValueAsString(payload);
+    }
 }
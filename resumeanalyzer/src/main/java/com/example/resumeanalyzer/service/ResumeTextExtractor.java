@@ -0,0 +1,282 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.util.LruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Turns uploaded resumes into the text sent to the NLP service.
+ *
+ * PDF and DOCX files are extracted here on a bounded pool, in parallel, instead of
+ * being downloaded again and parsed inside the NLP worker, where extraction would
+ * queue behind LLM inference. Results are cached by object name, which is derived
+ * from the file content, so a re-uploaded resume is not extracted again. Images,
+ * scanned PDFs and anything that fails to parse are still sent as a reference to the
+ * stored object, for the NLP service to OCR.
+ */
+@Service
+public class ResumeTextExtractor {
+
+    // Below this, a PDF is assumed to be scanned and left to OCR
+    private static final int MIN_PDF_TEXT_LENGTH = 50;
+
+    private static final String DOCX_BODY = "word/document.xml";
+    private static final String WORDPROCESSING_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private final ThreadPoolExecutor executor;
+    private final LruCache<String, String> extracted;
+    private final AnalysisPipelineMetrics pipelineMetrics;
+    private final XMLInputFactory xmlInputFactory;
+    private final Counter cacheHits;
+    private final Counter extractions;
+    private final Counter fallbacks;
+
+    @Value("${app.extraction.max-file-kb:10240}")
+    private long maxFileKb;
+
+    // A DOCX body is XML inside a zip; bounds what a small upload may inflate to
+    @Value("${app.extraction.max-docx-body-kb:20480}")
+    private long maxDocxBodyKb;
+
+    public ResumeTextExtractor(AnalysisPipelineMetrics pipelineMetrics, MeterRegistry meterRegistry,
+            @Value("${app.extraction.threads:4}") int threads,
+            @Value("${app.extraction.queue-capacity:200}") int queueCapacity,
+            @Value("${app.extraction.cache-size:1000}") int cacheSize) {
+        this.pipelineMetrics = pipelineMetrics;
+        this.extracted = new LruCache<>(cacheSize);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "text-extract-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        this.cacheHits = Counter.builder("analysis.extraction").tag("result", "cached").register(meterRegistry);
+        this.extractions = Counter.builder("analysis.extraction").tag("result", "extracted").register(meterRegistry);
+        this.fallbacks = Counter.builder("analysis.extraction").tag("result", "reference").register(meterRegistry);
+        Gauge.builder("analysis.extraction.queued", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Whether {@link #resumeText} would read the file's content, so callers only load
+     * what will be used.
+     */
+    public boolean wantsContent(String fileName, long size) {
+        return kindOf(fileName) != Kind.OTHER && size <= maxFileKb * 1024;
+    }
+
+    /**
+     * The text to send for a stored resume: its extracted text, or a reference to the
+     * object when it can't be extracted here. Never completes exceptionally.
+     *
+     * @param content read on an extraction thread, and only if the file is extracted
+     */
+    public CompletableFuture<String> resumeText(String objectName, String fileName, long size,
+            Callable<byte[]> content) {
+        Kind kind = kindOf(fileName);
+        if (kind == Kind.OTHER || size > maxFileKb * 1024) {
+            return fallback(objectName);
+        }
+
+        String cached = extracted.get(objectName);
+        if (cached != null) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> extract(objectName, kind, content), executor);
+        } catch (RejectedExecutionException e) {
+            // Backed up; the NLP service can still extract it, just more slowly
+            return fallback(objectName);
+        }
+    }
+
+    /**
+     * Counts a resume sent as a reference because the caller could not read its content.
+     */
+    public void countFallback() {
+        fallbacks.increment();
+    }
+
+    private String extract(String objectName, Kind kind, Callable<byte[]> content) {
+        long started = System.nanoTime();
+        try {
+            byte[] bytes = content.call();
+            String text = switch (kind) {
+                case TEXT -> new String(bytes, StandardCharsets.UTF_8);
+                case PDF -> pdfText(bytes);
+                case DOCX -> docxText(bytes);
+                case OTHER -> null;
+            };
+            if (text == null || text.isBlank()) {
+                fallbacks.increment();
+                return reference(objectName);
+            }
+
+            extracted.put(objectName, text);
+            extractions.increment();
+            pipelineMetrics.timer(AnalysisPipelineMetrics.Stage.EXTRACT)
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return text;
+        } catch (Exception e) {
+            System.err.println("Text extraction failed for " + objectName + ": " + e.getMessage());
+            fallbacks.increment();
+            return reference(objectName);
+        }
+    }
+
+    private String pdfText(byte[] bytes) throws IOException {
+        try (PDDocument document = Loader.loadPDF(bytes)) {
+            String text = new PDFTextStripper().getText(document);
+            return text.strip().length() < MIN_PDF_TEXT_LENGTH ? null : text;
+        }
+    }
+
+    // Paragraph text of the main document part; headers, footers and text boxes in other parts are skipped
+    private String docxText(byte[] bytes) throws Exception {
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                if (DOCX_BODY.equals(entry.getName())) {
+                    return documentText(new BoundedInputStream(zip, maxDocxBodyKb * 1024));
+                }
+            }
+        }
+        return null;
+    }
+
+    private String documentText(InputStream body) throws Exception {
+        StringBuilder text = new StringBuilder();
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(body);
+        try {
+            boolean inText = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT && WORDPROCESSING_NS.equals(reader.getNamespaceURI())) {
+                    switch (reader.getLocalName()) {
+                        case "t" -> inText = true;
+                        case "tab" -> text.append('\t');
+                        case "br", "cr" -> text.append('\n');
+                        default -> {
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && WORDPROCESSING_NS.equals(reader.getNamespaceURI())) {
+                    switch (reader.getLocalName()) {
+                        case "t" -> inText = false;
+                        case "p" -> text.append('\n');
+                        default -> {
+                        }
+                    }
+                } else if (inText && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)) {
+                    text.append(reader.getText());
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return text.toString();
+    }
+
+    private CompletableFuture<String> fallback(String objectName) {
+        fallbacks.increment();
+        return CompletableFuture.completedFuture(reference(objectName));
+    }
+
+    // The form the NLP service downloads and extracts itself
+    static String reference(String objectName) {
+        return "Resume file: " + objectName;
+    }
+
+    private enum Kind {
+        TEXT,
+        PDF,
+        DOCX,
+        OTHER
+    }
+
+    private static Kind kindOf(String fileName) {
+        String name = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+        if (name.endsWith(".txt")) {
+            return Kind.TEXT;
+        }
+        if (name.endsWith(".pdf")) {
+            return Kind.PDF;
+        }
+        if (name.endsWith(".docx")) {
+            return Kind.DOCX;
+        }
+        return Kind.OTHER;
+    }
+
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            this.in = in;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                consume(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            if (read > 0) {
+                consume(read);
+            }
+            return read;
+        }
+
+        private void consume(int count) throws IOException {
+            remaining -= count;
+            if (remaining < 0) {
+                throw new IOException("Document body is larger than the extraction limit");
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.resumeanalyzer.repository;
+
+import com.example.resumeanalyzer.model.AdminAnalysisSummary;
+import com.example.resumeanalyzer.model.AdminUserSummary;
+import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.example.resumeanalyzer.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The admin list endpoints must not fan out into one query per row, however many
+ * users or analyses are on the page.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class AdminQueryCountTests {
+
+	private static final int USERS = 6;
+	private static final int ANALYSES_PER_USER = 3;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private AnalysisRepository analysisRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		for (int i = 0; i < USERS; i++) {
+			User user = userRepository.save(new User("user" + i, "user" + i + "@example.com", "User " + i, "secret"));
+			for (int j = 0; j < ANALYSES_PER_USER; j++) {
+				ResumeAnalysis analysis = new ResumeAnalysis();
+				analysis.setUser(user);
+				analysis.setJobTitle("Job " + j);
+				analysis.setSuitabilityScore(10 * j);
+				analysisRepository.save(analysis);
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void userPageIsOneAggregateQueryPlusCount() {
+		Page<AdminUserSummary> page = userRepository.findUserSummaries(PageRequest.of(0, 4, Sort.by("id").descending()));
+
+		assertThat(page.getContent()).hasSize(4);
+		assertThat(page.getTotalElements()).isEqualTo(USERS);
+		assertThat(page.getContent()).allSatisfy(user -> assertThat(user.analysisCount()).isEqualTo(ANALYSES_PER_USER));
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void analysisPageIsOneJoinedQueryPlusCount() {
+		Page<AdminAnalysisSummary> page = analysisRepository
+				.findAdminSummaries(PageRequest.of(0, 10, Sort.by("createdAt").descending()));
+
+		assertThat(page.getContent()).hasSize(10);
+		assertThat(page.getTotalElements()).isEqualTo(USERS * ANALYSES_PER_USER);
+		assertThat(page.getContent()).allSatisfy(analysis -> assertThat(analysis.username()).startsWith("user"));
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+}
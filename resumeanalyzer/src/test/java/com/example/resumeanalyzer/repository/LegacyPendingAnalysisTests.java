@@ -0,0 +1,105 @@
+package com.example.resumeanalyzer.repository;
+
+import com.example.resumeanalyzer.model.AnalysisStatus;
+import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.example.resumeanalyzer.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rows left at "Pending Analysis" by versions without a status column are picked up
+ * by the reaper when recent, failed when too old to publish again, and counted as
+ * pending rather than completed until then.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class LegacyPendingAnalysisTests {
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private AnalysisRepository analysisRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.save(new User("legacy", "legacy@example.com", "Legacy User", "secret"));
+	}
+
+	@Test
+	void recentLegacyPendingRowsBecomeOverdue() {
+		LocalDateTime now = LocalDateTime.now();
+		Long recent = legacy("Pending Analysis", now.minusHours(1));
+		Long completed = legacy("Software Engineer", now.minusHours(1));
+
+		assertThat(analysisRepository.adoptLegacyPending(now, now.minusHours(24))).isEqualTo(1);
+		entityManager.clear();
+
+		ResumeAnalysis adopted = analysisRepository.findById(recent).orElseThrow();
+		assertThat(adopted.getStatus()).isEqualTo(AnalysisStatus.PENDING);
+		assertThat(adopted.getAttempts()).isEqualTo(1);
+		assertThat(analysisRepository.findOverdue(now.plusSeconds(1), Limit.of(10)))
+				.extracting(ResumeAnalysis::getId).containsExactly(recent);
+		assertThat(analysisRepository.findById(completed).orElseThrow().getNextAttemptAt()).isNull();
+	}
+
+	@Test
+	void oldLegacyPendingRowsAreFailed() {
+		LocalDateTime now = LocalDateTime.now();
+		Long old = legacy("Pending Analysis", now.minusDays(3));
+		Long recent = legacy("Pending Analysis", now.minusHours(1));
+
+		assertThat(analysisRepository.failLegacyPending(now.minusHours(24))).isEqualTo(1);
+		entityManager.clear();
+
+		ResumeAnalysis failed = analysisRepository.findById(old).orElseThrow();
+		assertThat(failed.getStatus()).isEqualTo(AnalysisStatus.FAILED);
+		assertThat(failed.getJobTitle()).isEqualTo("Analysis Timed Out");
+		assertThat(analysisRepository.findById(recent).orElseThrow().getStatus()).isEqualTo(AnalysisStatus.PENDING);
+	}
+
+	@Test
+	void legacyRowsAreCountedByTheirTitle() {
+		LocalDateTime now = LocalDateTime.now();
+		legacy("Pending Analysis", now);
+		legacy("Software Engineer", now);
+
+		Map<AnalysisStatus, Long> byStatus = new EnumMap<>(AnalysisStatus.class);
+		for (Object[] row : analysisRepository.countGroupedByStatus()) {
+			byStatus.merge(AnalysisStatus.resolve((AnalysisStatus) row[0], (String) row[1]), (Long) row[2], Long::sum);
+		}
+		long inHistogram = analysisRepository.countCompletedGroupedByScoreDecile().stream()
+				.mapToLong(row -> (Long) row[1]).sum();
+
+		assertThat(byStatus).containsEntry(AnalysisStatus.PENDING, 1L).containsEntry(AnalysisStatus.COMPLETED, 1L);
+		assertThat(inHistogram).isEqualTo(1);
+	}
+
+	// A row as written before the status column existed
+	private Long legacy(String jobTitle, LocalDateTime createdAt) {
+		ResumeAnalysis analysis = new ResumeAnalysis();
+		analysis.setUser(user);
+		analysis.setJobTitle(jobTitle);
+		analysis.setSuitabilityScore(0);
+		analysis.setStatus(null);
+		analysis.setCreatedAt(createdAt);
+		Long id = analysisRepository.save(analysis).getId();
+		entityManager.flush();
+		entityManager.clear();
+		return id;
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.resumeanalyzer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The dashboard time series: slots are reused as the clock moves on, without losing
+ * increments made while a slot is being reset.
+ */
+class AdminStatsTrackerTests {
+
+	private static final long MINUTE = 60_000;
+
+	private final AdminStatsTracker.TimeSeries series = new AdminStatsTracker.TimeSeries(60, 60);
+
+	@Test
+	void countsPerBucketWithinTheWindow() {
+		long now = 1_000 * MINUTE;
+		series.increment(now - MINUTE);
+		series.increment(now);
+		series.increment(now);
+
+		assertThat(counts(now)).endsWith(1L, 2L);
+	}
+
+	@Test
+	void reusedSlotStartsFromZero() {
+		long now = 1_000 * MINUTE;
+		series.increment(now);
+		series.increment(now);
+
+		long later = now + 60 * MINUTE; // same slot, next lap of the ring
+		series.increment(later);
+
+		assertThat(counts(later)).endsWith(1L);
+		assertThat(counts(later).stream().mapToLong(Long::longValue).sum()).isEqualTo(1);
+	}
+
+	@Test
+	void lateIncrementForAnOverwrittenBucketIsDropped() {
+		long now = 1_000 * MINUTE;
+		series.increment(now + 60 * MINUTE);
+		series.increment(now);
+
+		assertThat(counts(now + 60 * MINUTE)).endsWith(1L);
+	}
+
+	@Test
+	void noIncrementIsLostWhileTheSlotRollsOver() throws InterruptedException {
+		long now = 1_000 * MINUTE;
+		series.increment(now);
+		long later = now + 60 * MINUTE;
+
+		int threads = 8;
+		int perThread = 20_000;
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> workers = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			Thread worker = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int j = 0; j < perThread; j++) {
+					series.increment(later);
+				}
+			});
+			worker.start();
+			workers.add(worker);
+		}
+		start.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		assertThat(counts(later)).endsWith((long) threads * perThread);
+	}
+
+	private List<Long> counts(long now) {
+		return series.snapshot(now).stream().map(point -> (Long) point.get("count")).toList();
+	}
+}
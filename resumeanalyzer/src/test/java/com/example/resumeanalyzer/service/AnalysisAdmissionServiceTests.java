@@ -0,0 +1,96 @@
+package com.example.resumeanalyzer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The per-user token bucket: a burst is admitted at once, tokens come back at the
+ * configured rate, and a full bucket never holds more than the burst.
+ */
+class AnalysisAdmissionServiceTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+	private static final Long USER = 1L;
+
+	// One token per second, up to three at once
+	private final AnalysisAdmissionService admission = new AnalysisAdmissionService(new SimpleMeterRegistry(), 60, 3);
+
+	@Test
+	void admitsTheBurstThenRejectsUntilATokenIsBack() {
+		long now = 1000 * SECOND;
+		for (int i = 0; i < 3; i++) {
+			assertThat(admission.takeUserToken(USER, now)).isZero();
+		}
+
+		assertThat(admission.takeUserToken(USER, now)).isEqualTo(SECOND);
+		assertThat(admission.takeUserToken(USER, now + SECOND / 4)).isEqualTo(3 * SECOND / 4);
+	}
+
+	@Test
+	void refillsAtTheConfiguredRate() {
+		long now = 1000 * SECOND;
+		for (int i = 0; i < 3; i++) {
+			admission.takeUserToken(USER, now);
+		}
+
+		assertThat(admission.takeUserToken(USER, now + SECOND)).isZero();
+		assertThat(admission.takeUserToken(USER, now + SECOND)).isPositive();
+		assertThat(admission.takeUserToken(USER, now + 3 * SECOND)).isZero();
+		assertThat(admission.takeUserToken(USER, now + 3 * SECOND)).isZero();
+		assertThat(admission.takeUserToken(USER, now + 3 * SECOND)).isPositive();
+	}
+
+	@Test
+	void idleTimeDoesNotBankMoreThanTheBurst() {
+		long now = 1000 * SECOND;
+		admission.takeUserToken(USER, now);
+
+		long later = now + 60 * SECOND;
+		for (int i = 0; i < 3; i++) {
+			assertThat(admission.takeUserToken(USER, later)).isZero();
+		}
+		assertThat(admission.takeUserToken(USER, later)).isPositive();
+	}
+
+	@Test
+	void usersHaveSeparateBuckets() {
+		long now = 1000 * SECOND;
+		for (int i = 0; i < 3; i++) {
+			admission.takeUserToken(USER, now);
+		}
+
+		assertThat(admission.takeUserToken(USER, now)).isPositive();
+		assertThat(admission.takeUserToken(2L, now)).isZero();
+	}
+
+	@Test
+	void pruningKeepsBucketsThatAreStillRefilling() {
+		long now = 1000 * SECOND;
+		for (int i = 0; i < 3; i++) {
+			admission.takeUserToken(USER, now);
+		}
+
+		admission.pruneFullBuckets(now + SECOND);
+
+		// Two tokens are still owed; pruning must not hand out a fresh burst
+		assertThat(admission.takeUserToken(USER, now + SECOND)).isZero();
+		assertThat(admission.takeUserToken(USER, now + SECOND)).isPositive();
+	}
+
+	@Test
+	void prunedBucketStartsFull() {
+		long now = 1000 * SECOND;
+		admission.takeUserToken(USER, now);
+
+		admission.pruneFullBuckets(now + 10 * SECOND);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(admission.takeUserToken(USER, now + 10 * SECOND)).isZero();
+		}
+		assertThat(admission.takeUserToken(USER, now + 10 * SECOND)).isPositive();
+	}
+}
@@ -0,0 +1,177 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.service.AnalysisDispatcher.Priority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Release order between users and between interactive and bulk work, and the
+ * accounting of the slots held at the NLP service.
+ */
+class AnalysisDispatcherTests {
+
+	private final List<Long> published = new ArrayList<>();
+	private final List<Long> failed = new ArrayList<>();
+
+	@Test
+	void releasesRoundRobinAcrossUsers() {
+		AnalysisDispatcher dispatcher = dispatcher(1, 4, Runnable::run);
+		submit(dispatcher, 1L, Priority.INTERACTIVE, 10L);
+		submit(dispatcher, 1L, Priority.INTERACTIVE, 11L);
+		submit(dispatcher, 1L, Priority.INTERACTIVE, 12L);
+		submit(dispatcher, 2L, Priority.INTERACTIVE, 20L);
+		submit(dispatcher, 3L, Priority.INTERACTIVE, 30L);
+		submit(dispatcher, 2L, Priority.INTERACTIVE, 21L);
+
+		finishAll(dispatcher);
+
+		assertThat(published).containsExactly(10L, 11L, 20L, 30L, 12L, 21L);
+	}
+
+	@Test
+	void bulkWorkYieldsToInteractiveWorkByWeight() {
+		AnalysisDispatcher dispatcher = dispatcher(1, 2, Runnable::run);
+		submit(dispatcher, 1L, Priority.BULK, 100L); // holds the only slot while the rest queue up
+		for (long id = 101; id <= 104; id++) {
+			submit(dispatcher, 1L, Priority.BULK, id);
+		}
+		for (long id = 1; id <= 4; id++) {
+			submit(dispatcher, 2L, Priority.INTERACTIVE, id);
+		}
+
+		finishAll(dispatcher);
+
+		assertThat(published).containsExactly(100L, 1L, 2L, 101L, 3L, 4L, 102L, 103L, 104L);
+	}
+
+	@Test
+	void bulkWorkRunsWhenNoInteractiveWorkWaits() {
+		AnalysisDispatcher dispatcher = dispatcher(2, 4, Runnable::run);
+		submit(dispatcher, 1L, Priority.BULK, 100L);
+		submit(dispatcher, 1L, Priority.BULK, 101L);
+
+		assertThat(published).containsExactly(100L, 101L);
+	}
+
+	@Test
+	void completionsFreeSlotsOnlyOnce() {
+		AnalysisDispatcher dispatcher = dispatcher(2, 4, Runnable::run);
+		submit(dispatcher, 1L, Priority.INTERACTIVE, 1L);
+		submit(dispatcher, 1L, Priority.INTERACTIVE, 2L);
+		submit(dispatcher, 1L, Priority.INTERACTIVE, 3L);
+		submit(dispatcher, 1L, Priority.INTERACTIVE, 4L);
+		assertThat(published).containsExactly(1L, 2L);
+
+		// Completions released by other instances hold no slot here
+		dispatcher.finished(99L);
+		assertThat(published).containsExactly(1L, 2L);
+
+		dispatcher.finished(1L);
+		dispatcher.finished(1L);
+		assertThat(published).containsExactly(1L, 2L, 3L);
+		assertThat(dispatcher.isQueued(4L)).isTrue();
+	}
+
+	@Test
+	void withdrawTakesQueuedRequestsOutAndReportsReleasedOnes() {
+		AnalysisDispatcher dispatcher = dispatcher(1, 4, Runnable::run);
+		submit(dispatcher, 1L, Priority.BULK, 1L);
+		submit(dispatcher, 1L, Priority.BULK, 2L);
+		submit(dispatcher, 1L, Priority.BULK, 3L);
+
+		AnalysisDispatcher.Withdrawal withdrawal = dispatcher.withdraw(List.of(1L, 2L, 7L));
+
+		assertThat(withdrawal.withdrawn()).containsExactly(2L);
+		assertThat(withdrawal.released()).containsExactly(1L);
+		assertThat(dispatcher.isQueued(2L)).isFalse();
+
+		dispatcher.finished(1L);
+		assertThat(published).containsExactly(1L, 3L);
+	}
+
+	@Test
+	void analysisFinishedElsewhereIsTakenOutOfTheQueue() {
+		AnalysisDispatcher dispatcher = dispatcher(1, 4, Runnable::run);
+		submit(dispatcher, 1L, Priority.BULK, 1L);
+		submit(dispatcher, 1L, Priority.BULK, 2L);
+		submit(dispatcher, 1L, Priority.BULK, 3L);
+
+		dispatcher.finished(2L); // e.g. cancelled on another instance
+		assertThat(dispatcher.isQueued(2L)).isFalse();
+
+		dispatcher.finished(1L);
+		assertThat(published).containsExactly(1L, 3L);
+	}
+
+	@Test
+	void submissionAfterTheAnalysisFinishedIsDropped() {
+		AnalysisDispatcher dispatcher = dispatcher(2, 4, Runnable::run);
+		dispatcher.finished(1L); // cancelled while its text was still being extracted
+
+		submit(dispatcher, 1L, Priority.BULK, 1L);
+
+		assertThat(published).isEmpty();
+		assertThat(dispatcher.isQueued(1L)).isFalse();
+	}
+
+	@Test
+	void releasedSlotLetsTheAnalysisBePublishedAgain() {
+		AnalysisDispatcher dispatcher = dispatcher(1, 4, Runnable::run);
+		submit(dispatcher, 1L, Priority.INTERACTIVE, 1L);
+
+		dispatcher.release(1L); // presumed lost, about to be republished
+		submit(dispatcher, 1L, Priority.INTERACTIVE, 1L);
+
+		assertThat(published).containsExactly(1L, 1L);
+	}
+
+	@Test
+	void failedPublishFreesItsSlotAndReportsTheFailure() {
+		AnalysisDispatcher dispatcher = dispatcher(1, 4, Runnable::run);
+		dispatcher.submit(1L, Priority.INTERACTIVE, 1L, () -> {
+			throw new IllegalStateException("buffer full");
+		}, e -> failed.add(1L));
+		submit(dispatcher, 1L, Priority.INTERACTIVE, 2L);
+
+		assertThat(failed).containsExactly(1L);
+		assertThat(published).containsExactly(2L);
+	}
+
+	@Test
+	void publishesOnTheDispatcherExecutorNotTheCallerThread() {
+		List<Runnable> tasks = new ArrayList<>();
+		Executor deferred = tasks::add;
+		AnalysisDispatcher dispatcher = dispatcher(2, 4, deferred);
+		submit(dispatcher, 1L, Priority.INTERACTIVE, 1L);
+
+		assertThat(published).isEmpty();
+		tasks.forEach(Runnable::run);
+		assertThat(published).containsExactly(1L);
+	}
+
+	private AnalysisDispatcher dispatcher(int maxOutstanding, int interactiveWeight, Executor publisher) {
+		AnalysisDispatcher dispatcher = new AnalysisDispatcher(new SimpleMeterRegistry(), publisher);
+		ReflectionTestUtils.setField(dispatcher, "maxOutstanding", maxOutstanding);
+		ReflectionTestUtils.setField(dispatcher, "interactiveWeight", interactiveWeight);
+		ReflectionTestUtils.setField(dispatcher, "outstandingTtlSeconds", 600L);
+		return dispatcher;
+	}
+
+	private void submit(AnalysisDispatcher dispatcher, Long userId, Priority priority, Long analysisId) {
+		dispatcher.submit(userId, priority, analysisId, () -> published.add(analysisId), e -> failed.add(analysisId));
+	}
+
+	// Completes each published request in turn until nothing is left to release
+	private void finishAll(AnalysisDispatcher dispatcher) {
+		for (int i = 0; i < published.size(); i++) {
+			dispatcher.finished(published.get(i));
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.model.AnalysisStatus;
+import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.example.resumeanalyzer.repository.AnalysisRepository;
+import com.example.resumeanalyzer.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * An analysis that runs out of attempts fails alone, with only the submissions
+ * coalesced onto it on this instance.
+ */
+class AnalysisReaperTests {
+
+	private static final String KEY = AnalysisRows.KEY;
+
+	private final AnalysisRows rows = new AnalysisRows();
+	private AnalysisResultCache resultCache;
+	private AnalysisReaper reaper;
+
+	@BeforeEach
+	void setUp() {
+		AnalysisRepository analysisRepository = rows.repository();
+		when(analysisRepository.rescheduleAttempt(anyLong(), any(), anyInt(), any())).thenReturn(1);
+		when(analysisRepository.findOverdue(any(), any())).thenAnswer(invocation -> List.of(rows.get(1L)));
+
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		AnalysisDispatcher dispatcher = new AnalysisDispatcher(meterRegistry, Runnable::run);
+		resultCache = new AnalysisResultCache(analysisRepository, meterRegistry, 10);
+		ReflectionTestUtils.setField(resultCache, "inFlightTtlSeconds", 600L);
+
+		AnalysisService analysisService = new AnalysisService(mock(MinioService.class), analysisRepository,
+				mock(UserRepository.class), mock(ResumeAnalysisProducer.class), dispatcher,
+				mock(AnalysisCompletionRegistry.class), mock(AnalysisCompletionBroadcaster.class), resultCache,
+				mock(AdminStatsTracker.class), mock(AnalysisPipelineMetrics.class), mock(ResumeTextExtractor.class),
+				mock(KeywordMatcher.class), new AnalysisResultMapper(new ObjectMapper()), false);
+
+		reaper = new AnalysisReaper(analysisRepository, analysisService, dispatcher, resultCache, meterRegistry);
+		ReflectionTestUtils.setField(reaper, "enabled", true);
+		ReflectionTestUtils.setField(reaper, "maxAttempts", 3);
+	}
+
+	@Test
+	void timedOutLeaderFailsWithItsOwnFollowersOnly() {
+		ResumeAnalysis reaped = pending(1L, 3);
+		ResumeAnalysis follower = pending(2L, 1);
+		ResumeAnalysis elsewhere = pending(3L, 1); // same content, its request published by another instance
+		resultCache.leadOrJoin(KEY, 1L);
+		resultCache.leadOrJoin(KEY, 2L);
+
+		reaper.reapOverdue();
+
+		assertThat(reaped.getStatus()).isEqualTo(AnalysisStatus.FAILED);
+		assertThat(reaped.getJobTitle()).isEqualTo("Analysis Timed Out");
+		assertThat(follower.getStatus()).isEqualTo(AnalysisStatus.FAILED);
+		assertThat(elsewhere.getStatus()).isEqualTo(AnalysisStatus.PENDING);
+	}
+
+	@Test
+	void timedOutAnalysisWithoutLocalFollowersFailsAlone() {
+		// Published before a restart: nothing is in flight here, and the other rows lead elsewhere
+		ResumeAnalysis reaped = pending(1L, 3);
+		ResumeAnalysis elsewhere = pending(2L, 2);
+
+		reaper.reapOverdue();
+
+		assertThat(reaped.getStatus()).isEqualTo(AnalysisStatus.FAILED);
+		assertThat(elsewhere.getStatus()).isEqualTo(AnalysisStatus.PENDING);
+		assertThat(resultCache.leadOrJoin(KEY, 2L)).isTrue();
+	}
+
+	// Overdue after the given number of attempts
+	private ResumeAnalysis pending(Long id, int attempts) {
+		ResumeAnalysis analysis = rows.pending(id);
+		analysis.setAttempts(attempts);
+		analysis.setNextAttemptAt(LocalDateTime.now().minusMinutes(1));
+		return analysis;
+	}
+}
@@ -0,0 +1,115 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.model.AnalysisStatus;
+import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.example.resumeanalyzer.repository.AnalysisRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * A failed in-flight request takes down only the submissions coalesced onto it on
+ * this instance, never every pending row that happens to share its content.
+ */
+class AnalysisResultCacheTests {
+
+	private static final String KEY = AnalysisRows.KEY;
+
+	private final AnalysisRows rows = new AnalysisRows();
+	private final AnalysisRepository analysisRepository = rows.repository();
+	private AnalysisResultCache cache;
+
+	@BeforeEach
+	void setUp() {
+		cache = new AnalysisResultCache(analysisRepository, new SimpleMeterRegistry(), 10);
+		ReflectionTestUtils.setField(cache, "inFlightTtlSeconds", 600L);
+	}
+
+	@Test
+	void failedLeaderFailsOnlyItsOwnFollowers() {
+		ResumeAnalysis leader = pending(1L);
+		pending(2L);
+		pending(3L);
+		ResumeAnalysis elsewhere = pending(4L); // same content, published by another instance
+
+		assertThat(cache.leadOrJoin(KEY, 1L)).isTrue();
+		assertThat(cache.leadOrJoin(KEY, 2L)).isFalse();
+		assertThat(cache.leadOrJoin(KEY, 3L)).isFalse();
+
+		List<ResumeAnalysis> failed = cache.failed(leader);
+
+		assertThat(failed).extracting(ResumeAnalysis::getId).containsExactlyInAnyOrder(2L, 3L);
+		assertThat(failed).allMatch(analysis -> analysis.getStatus() == AnalysisStatus.FAILED);
+		assertThat(elsewhere.getStatus()).isEqualTo(AnalysisStatus.PENDING);
+		verify(analysisRepository, never()).findByContentHashAndStatus(any(), any());
+	}
+
+	@Test
+	void failedFollowerLeavesTheLeaderAndOtherFollowersAlone() {
+		pending(1L);
+		ResumeAnalysis follower = pending(2L);
+		pending(3L);
+		cache.leadOrJoin(KEY, 1L);
+		cache.leadOrJoin(KEY, 2L);
+		cache.leadOrJoin(KEY, 3L);
+
+		assertThat(cache.failed(follower)).isEmpty();
+
+		// Still in flight, and the withdrawn follower is no longer failed along with the leader
+		pending(5L);
+		assertThat(cache.leadOrJoin(KEY, 5L)).isFalse();
+		assertThat(cache.failed(rows.get(1L))).extracting(ResumeAnalysis::getId).containsExactlyInAnyOrder(3L, 5L);
+	}
+
+	@Test
+	void followersAlreadyAnsweredAreNotFailed() {
+		ResumeAnalysis leader = pending(1L);
+		ResumeAnalysis answered = pending(2L);
+		cache.leadOrJoin(KEY, 1L);
+		cache.leadOrJoin(KEY, 2L);
+		answered.setStatus(AnalysisStatus.COMPLETED);
+
+		assertThat(cache.failed(leader)).isEmpty();
+		assertThat(answered.getStatus()).isEqualTo(AnalysisStatus.COMPLETED);
+	}
+
+	@Test
+	void nextSubmissionLeadsOnceTheFailedLeaderIsReleased() {
+		ResumeAnalysis leader = pending(1L);
+		cache.leadOrJoin(KEY, 1L);
+
+		cache.failed(leader);
+
+		assertThat(cache.leadOrJoin(KEY, 2L)).isTrue();
+	}
+
+	@Test
+	void withdrawnLeaderHandsItsFollowersToTheReaperInsteadOfFailingThem() {
+		pending(1L);
+		ResumeAnalysis follower = pending(2L);
+		cache.leadOrJoin(KEY, 1L);
+		cache.leadOrJoin(KEY, 2L);
+
+		cache.withdrawn(1L, KEY);
+
+		assertThat(follower.getStatus()).isEqualTo(AnalysisStatus.PENDING);
+		verify(analysisRepository).updateNextAttemptAt(eq(2L), any());
+		verify(analysisRepository, never()).saveAll(anyCollection());
+		// The reaper's next pass finds no request in flight and publishes the follower
+		assertThat(cache.leadOrJoin(KEY, 2L)).isTrue();
+	}
+
+	private ResumeAnalysis pending(Long id) {
+		return rows.pending(id);
+	}
+}
@@ -0,0 +1,61 @@
+package com.example.resumeanalyzer.service;
+
+import com.example.resumeanalyzer.model.AnalysisStatus;
+import com.example.resumeanalyzer.model.ResumeAnalysis;
+import com.example.resumeanalyzer.repository.AnalysisRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A mocked {@link AnalysisRepository} that finds and saves the rows held here, all of
+ * the same content.
+ */
+class AnalysisRows {
+
+	static final String KEY = "content-key";
+
+	private final Map<Long, ResumeAnalysis> rows = new HashMap<>();
+	private final AnalysisRepository repository = mock(AnalysisRepository.class);
+
+	@SuppressWarnings("unchecked")
+	AnalysisRows() {
+		when(repository.findAllById(anyCollection())).thenAnswer(invocation -> {
+			List<ResumeAnalysis> found = new ArrayList<>();
+			for (Long id : (Collection<Long>) invocation.getArgument(0)) {
+				if (rows.containsKey(id)) {
+					found.add(rows.get(id));
+				}
+			}
+			return found;
+		});
+		when(repository.saveAll(anyCollection())).thenAnswer(invocation -> new ArrayList<>(
+				(Collection<ResumeAnalysis>) invocation.getArgument(0)));
+		when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	AnalysisRepository repository() {
+		return repository;
+	}
+
+	ResumeAnalysis get(Long id) {
+		return rows.get(id);
+	}
+
+	ResumeAnalysis pending(Long id) {
+		ResumeAnalysis analysis = new ResumeAnalysis();
+		analysis.setId(id);
+		analysis.setContentHash(KEY);
+		analysis.setStatus(AnalysisStatus.PENDING);
+		rows.put(id, analysis);
+		return analysis;
+	}
+}
@@ -0,0 +1,79 @@
+package com.example.resumeanalyzer.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Skills are found whole, including ones with punctuation in them, the longest phrase
+ * wins, aliases count towards their skill, and the score is normalized by resume length.
+ */
+class KeywordMatcherTests {
+
+	private final KeywordMatcher matcher = new KeywordMatcher();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(matcher, "averageResumeWords", 600.0);
+		ReflectionTestUtils.setField(matcher, "maxChars", 100000);
+	}
+
+	@Test
+	void keepsSkillsWithPunctuationWhole() {
+		KeywordMatcher.Match match = matcher.match("Built CI/CD pipelines for C++ and Node.js services.",
+				"We want C++, node.js and ci/cd experience.");
+
+		assertThat(match.terms()).containsExactly("c++", "node.js", "ci/cd");
+	}
+
+	@Test
+	void splitsUnknownCompoundsIntoTheirWords() {
+		KeywordMatcher.Match match = matcher.match("Java/Kotlin backend developer", "Java and Kotlin");
+
+		assertThat(match.terms()).containsExactly("java", "kotlin");
+	}
+
+	@Test
+	void matchesTheLongestPhraseFirst() {
+		KeywordMatcher.Match match = matcher.match("Five years of Spring Boot", "Spring and Spring Boot");
+
+		// "spring boot" is one mention of its own skill, not also a mention of "spring"
+		assertThat(match.terms()).containsExactly("spring boot");
+		assertThat(match.score()).isLessThan(100);
+	}
+
+	@Test
+	void countsAliasesTowardsTheirSkill() {
+		KeywordMatcher.Match match = matcher.match("Deployed to k8s on Amazon Web Services, frontend in JS",
+				"Kubernetes, AWS and JavaScript");
+
+		assertThat(match.terms()).containsExactly("kubernetes", "aws", "javascript");
+	}
+
+	@Test
+	void oneMentionInAnAverageLengthResumeIsAFullMatch() {
+		assertThat(matcher.match(resume(600), "Java").score()).isEqualTo(100);
+	}
+
+	@Test
+	void longerResumesNeedMoreMentionsForTheSameScore() {
+		int average = matcher.match(resume(600), "Java").score();
+		int longer = matcher.match(resume(6000), "Java").score();
+		int shorter = matcher.match(resume(60), "Java").score();
+
+		assertThat(longer).isLessThan(average);
+		assertThat(shorter).isEqualTo(average);
+	}
+
+	@Test
+	void noScoreWhenTheJobDescriptionNamesNoKnownSkill() {
+		assertThat(matcher.match("Java developer", "A friendly team player")).isNull();
+	}
+
+	// One mention of java padded to the given number of words
+	private static String resume(int words) {
+		return "java" + " lorem".repeat(words - 1);
+	}
+}